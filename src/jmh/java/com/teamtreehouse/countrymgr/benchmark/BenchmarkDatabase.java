@@ -0,0 +1,47 @@
+package com.teamtreehouse.countrymgr.benchmark;
+
+import com.teamtreehouse.countrymgr.HibernateUtil;
+import com.teamtreehouse.countrymgr.generator.CountryGenerator;
+import com.teamtreehouse.countrymgr.importer.CountryImporter;
+import com.teamtreehouse.countrymgr.model.Country;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+//In-memory H2 databases and deterministic country data shared by the benchmarks
+final class BenchmarkDatabase {
+    static final long SEED = 42L;
+
+    private BenchmarkDatabase() {
+    }
+
+    //A fresh, empty in-memory database configured like hibernate.cfg.xml apart from the connection and schema.
+    //Connections come straight from HikariCP, so statement profiling is not part of the measurements
+    static SessionFactory inMemory(boolean caching) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("hibernate.connection.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        settings.put("hibernate.connection.provider_class", "org.hibernate.hikaricp.internal.HikariCPConnectionProvider");
+        settings.put("hibernate.hbm2ddl.auto", "create-drop");
+        settings.put("hibernate.show_sql", "false");
+        settings.put("hibernate.format_sql", "false");
+        settings.put("hibernate.use_sql_comments", "false");
+        settings.put("hibernate.cache.use_second_level_cache", Boolean.toString(caching));
+        settings.put("hibernate.cache.use_query_cache", Boolean.toString(caching));
+        return HibernateUtil.buildSessionFactory(settings);
+    }
+
+    static void populate(SessionFactory sessionFactory, List<Country> countries) {
+        new CountryImporter(sessionFactory, 10_000).importCountries(countries.iterator());
+    }
+
+    //Synthetic countries from CountryGenerator, identical for every run
+    static List<Country> countries(int size) {
+        List<Country> countries = new ArrayList<>(size);
+        new CountryGenerator(size, SEED).forEachRemaining(countries::add);
+        return countries;
+    }
+}
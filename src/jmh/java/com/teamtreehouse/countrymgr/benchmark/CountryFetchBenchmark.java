@@ -0,0 +1,92 @@
+package com.teamtreehouse.countrymgr.benchmark;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import com.teamtreehouse.countrymgr.stats.StatisticsSummary;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Read paths of CountryRepository against an in-memory H2 database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CountryFetchBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean caching;
+
+    private SessionFactory sessionFactory;
+    private CountryRepository repository;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = BenchmarkDatabase.inMemory(caching);
+        repository = new CountryRepository(sessionFactory);
+        List<Country> countries = BenchmarkDatabase.countries(rows);
+        BenchmarkDatabase.populate(sessionFactory, countries);
+        codes = countries.stream().map(Country::getCode).toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public List<Country> fetchAllCountries() {
+        return repository.fetchAll();
+    }
+
+    @Benchmark
+    public List<CountryView> fetchAllViews() {
+        return repository.fetchAllViews();
+    }
+
+    @Benchmark
+    public void streamViews(Blackhole blackhole) {
+        repository.streamViews(blackhole::consume);
+    }
+
+    @Benchmark
+    public Country fetchCountryByCode() {
+        return repository.fetchByCode(codes[ThreadLocalRandom.current().nextInt(rows)]);
+    }
+
+    //Loads 1000 random codes one session and query at a time, as a baseline for findAllByCodes
+    @Benchmark
+    public void fetchCodesOneByOne(Blackhole blackhole) {
+        for (String code : randomCodes()) {
+            blackhole.consume(repository.fetchByCode(code));
+        }
+    }
+
+    @Benchmark
+    public List<Country> findAllByCodes() {
+        return repository.findAllByCodes(randomCodes());
+    }
+
+    private List<String> randomCodes() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> picked = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            picked.add(codes[random.nextInt(rows)]);
+        }
+        return picked;
+    }
+
+    @Benchmark
+    public StatisticsSummary fetchStatistics() {
+        return repository.fetchStatistics();
+    }
+}
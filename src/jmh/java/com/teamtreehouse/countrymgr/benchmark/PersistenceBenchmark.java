@@ -0,0 +1,109 @@
+package com.teamtreehouse.countrymgr.benchmark;
+
+import com.teamtreehouse.countrymgr.generator.CountryGenerator;
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Write paths: inserts of CountryBuilder-built countries, merge-based updates and bulk updates
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistenceBenchmark {
+    private static final int EXISTING_ROWS = 10_000;
+    private static final int BATCH = 1_000;
+
+    private SessionFactory sessionFactory;
+    private CountryRepository repository;
+    private int nextCode;
+    private final CountryGenerator existing = new CountryGenerator(EXISTING_ROWS, BenchmarkDatabase.SEED);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = BenchmarkDatabase.inMemory(true);
+        repository = new CountryRepository(sessionFactory);
+        BenchmarkDatabase.populate(sessionFactory, BenchmarkDatabase.countries(EXISTING_ROWS));
+        nextCode = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    //The add menu path: one session and transaction per country
+    @Benchmark
+    public void saveOne() {
+        repository.save(newCountry());
+    }
+
+    //BATCH countries persisted in one transaction and flushed in JDBC batches
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void persistBatch() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < BATCH; i++) {
+                session.persist(newCountry());
+            }
+        });
+    }
+
+    //BATCH countries inserted through the StatelessSession importer
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void importBatch() {
+        List<Country> countries = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            countries.add(newCountry());
+        }
+        BenchmarkDatabase.populate(sessionFactory, countries);
+    }
+
+    //The edit menu path: merge of a detached country
+    @Benchmark
+    public void mergeUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String code = existing.code(random.nextInt(EXISTING_ROWS));
+        repository.update(new Country.CountryBuilder(code, "Updated " + code)
+                .withInternetUsers(random.nextDouble() * 100)
+                .withAdultLiteracyRate(random.nextDouble() * 100)
+                .build());
+    }
+
+    //BATCH merges in one transaction each, as a baseline for bulkUpdateValues
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void mergeUpdateBatch() {
+        for (int i = 0; i < BATCH; i++) {
+            mergeUpdate();
+        }
+    }
+
+    //BATCH countries corrected by code with batched JDBC updates, without loading them
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int bulkUpdateValues() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Double> values = new HashMap<>();
+        while (values.size() < BATCH) {
+            values.put(existing.code(random.nextInt(EXISTING_ROWS)), random.nextDouble() * 100);
+        }
+        return repository.updateValues(CountryColumn.INTERNET_USERS, values);
+    }
+
+    //Inserted codes are digits only, so they never collide with the generated letter codes
+    private Country newCountry() {
+        return new Country.CountryBuilder(String.format("%09d", nextCode++), "Inserted")
+                .withInternetUsers(ThreadLocalRandom.current().nextDouble() * 100)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.teamtreehouse.countrymgr.benchmark;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.stats.CountryStatistics;
+import com.teamtreehouse.countrymgr.stats.ParallelStatistics;
+import com.teamtreehouse.countrymgr.stats.StatisticsSummary;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//In-memory statistics over pre-generated country lists
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatisticsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private List<Country> countries;
+    private List<CountryView> views;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        countries = BenchmarkDatabase.countries(size);
+        views = countries.stream().map(CountryView::of).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public StatisticsSummary singlePass() {
+        return CountryStatistics.ofViews(views).toSummary();
+    }
+
+    @Benchmark
+    public StatisticsSummary parallelPartitions() {
+        return ParallelStatistics.ofViews(views).toSummary();
+    }
+
+    @Benchmark
+    public StatisticsSummary singlePassEntities() {
+        return CountryStatistics.of(countries).toSummary();
+    }
+
+    //The six stream passes displayStatistics used to make, kept as a baseline
+    @Benchmark
+    public void sixStreamPasses(Blackhole blackhole) {
+        blackhole.consume(countries.stream()
+                .filter(country -> country.getInternetUsers() != null)
+                .max(Comparator.comparing(Country::getInternetUsers))
+                .orElse(null));
+        blackhole.consume(countries.stream()
+                .filter(country -> country.getInternetUsers() != null)
+                .min(Comparator.comparing(Country::getInternetUsers))
+                .orElse(null));
+        blackhole.consume(countries.stream()
+                .filter(country -> country.getAdultLiteracyRate() != null)
+                .max(Comparator.comparing(Country::getAdultLiteracyRate))
+                .orElse(null));
+        blackhole.consume(countries.stream()
+                .filter(country -> country.getAdultLiteracyRate() != null)
+                .min(Comparator.comparing(Country::getAdultLiteracyRate))
+                .orElse(null));
+        blackhole.consume(countries.stream()
+                .filter(country -> country.getInternetUsers() != null)
+                .mapToDouble(Country::getInternetUsers)
+                .average()
+                .orElse(0.0));
+        blackhole.consume(countries.stream()
+                .filter(country -> country.getAdultLiteracyRate() != null)
+                .mapToDouble(Country::getAdultLiteracyRate)
+                .average()
+                .orElse(0.0));
+    }
+}
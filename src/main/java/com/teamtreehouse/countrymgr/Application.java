@@ -1,55 +1,209 @@
 package com.teamtreehouse.countrymgr;
 
+import com.teamtreehouse.countrymgr.analytics.CountrySnapshot;
+import com.teamtreehouse.countrymgr.analytics.CountrySnapshots;
+import com.teamtreehouse.countrymgr.batch.BatchCommand;
+import com.teamtreehouse.countrymgr.batch.BatchCommandParser;
+import com.teamtreehouse.countrymgr.batch.MutationBatch;
+import com.teamtreehouse.countrymgr.http.CountryHttpServer;
+import com.teamtreehouse.countrymgr.importer.CountryImporter;
+import com.teamtreehouse.countrymgr.importer.IndicatorImporter;
+import com.teamtreehouse.countrymgr.jdbc.ProfilingConnectionProvider;
+import com.teamtreehouse.countrymgr.jdbc.QueryLog;
+import com.teamtreehouse.countrymgr.jdbc.StatementRecord;
+import com.teamtreehouse.countrymgr.metrics.ConnectionPoolMetrics;
+import com.teamtreehouse.countrymgr.metrics.HibernateMetrics;
+import com.teamtreehouse.countrymgr.metrics.MetricsRegistry;
+import com.teamtreehouse.countrymgr.metrics.PrometheusFileExporter;
+import com.teamtreehouse.countrymgr.metrics.PrometheusHttpExporter;
+import com.teamtreehouse.countrymgr.metrics.PrometheusTextFormat;
+import com.teamtreehouse.countrymgr.metrics.SimpleMetricsRegistry;
 import com.teamtreehouse.countrymgr.model.Country;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import org.hibernate.Session;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.model.Indicator;
+import com.teamtreehouse.countrymgr.model.IndicatorObservation;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import com.teamtreehouse.countrymgr.repository.CountrySchema;
+import com.teamtreehouse.countrymgr.repository.IndicatorRepository;
+import com.teamtreehouse.countrymgr.service.CountryQueryService;
+import com.teamtreehouse.countrymgr.service.CountryStatisticsService;
+import com.teamtreehouse.countrymgr.stats.ColumnDistribution;
+import com.teamtreehouse.countrymgr.stats.ColumnSummary;
+import com.teamtreehouse.countrymgr.stats.CountryDistribution;
+import com.teamtreehouse.countrymgr.stats.Histogram;
+import com.teamtreehouse.countrymgr.stats.StatisticsSummary;
+import com.teamtreehouse.countrymgr.view.CountryPager;
+import com.teamtreehouse.countrymgr.view.CountryTableRenderer;
 import org.hibernate.SessionFactory;
-import org.hibernate.boot.MetadataSources;
-import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
-import org.hibernate.service.ServiceRegistry;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Application {
 
     // Only one SessionFactory is created for the entire application
-    private static final SessionFactory sessionFactory = buildSessionFactory();
+    private static final SessionFactory sessionFactory = HibernateUtil.buildSessionFactory();
+    private static final CountryRepository countryRepository = new CountryRepository(sessionFactory);
+    private static final IndicatorRepository indicatorRepository = new IndicatorRepository(sessionFactory);
+    // In-memory columnar copy of the countries, reloaded in the background after every write
+    private static final CountrySnapshots countrySnapshots = new CountrySnapshots(countryRepository);
+    private static final CountryQueryService countryQueryService =
+            new CountryQueryService(countryRepository, countrySnapshots);
+    // Statistics kept current by Hibernate event listeners
+    private static final CountryStatisticsService countryStatistics =
+            CountryStatisticsService.register(sessionFactory, countryRepository, countrySnapshots);
     private static final BufferedReader readerBuffer = new BufferedReader(new InputStreamReader(System.in));
     private static final Map<String, String> menuOptions = new LinkedHashMap<>();
+    private static final MetricsRegistry metricsRegistry = new SimpleMetricsRegistry();
+    // Most countries listed by the range menu
+    private static final int RANGE_LIMIT = Integer.getInteger("countrymgr.rangeLimit", 100);
+    // Countries shown per page by the view menu
+    private static final int PAGE_SIZE = Integer.getInteger("countrymgr.pageSize", 20);
+    // Rows committed per transaction by the bulk importer
+    private static final int IMPORT_CHUNK_SIZE = Integer.getInteger("countrymgr.import.chunkSize", 5000);
+    // Batch mode changes committed per transaction
+    private static final int BATCH_TRANSACTION_SIZE = Integer.getInteger("countrymgr.batch.transactionSize", 1000);
+
+
+    public static void main(String[] args) throws IOException {
+        countryRepository.addBulkChangeListener(countrySnapshots::invalidate);
+        countryRepository.addBulkChangeListener(countryStatistics::invalidate);
+        countryRepository.addRowChangeListener(countryStatistics::rowsChanged);
+        for (String index : CountrySchema.verifyIndexes(sessionFactory)) {
+            System.out.printf("Created missing index %s %n", index);
+        }
+        countryStatistics.rebuild();
+        startMetrics();
+        startHttpServer();
+        if (args.length == 0) {
+            run();
+            return;
+        }
+        int status = runBatch(args);
+        sessionFactory.close();
+        System.exit(status);
+    }
 
+    //Runs the operations given as arguments, separated by ";", or "script <file>" with one per line, e.g.
+    //  edit --code ARG --internet 70.1 ; delete --code XYZ ; statistics
+    //Returns the process exit status: 0 when every operation succeeded
+    private static int runBatch(String[] args) {
+        List<BatchCommand> commands;
+        try {
+            commands = BatchCommandParser.parseArguments(args);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.printf("Invalid batch: %s %n", ex.getMessage());
+            return 2;
+        }
 
-    //Builds Hibernate Session Factory
-    private static SessionFactory buildSessionFactory() {
-        final ServiceRegistry registry = new StandardServiceRegistryBuilder()
-                .configure()
-                .build();
+        long start = System.nanoTime();
+        MutationBatch mutations = new MutationBatch(sessionFactory, countryRepository, BATCH_TRANSACTION_SIZE);
         try {
-            return new MetadataSources(registry)
-                    .buildMetadata()
-                    .buildSessionFactory();
-        } catch (Exception ex) { //Logs exception
-            StandardServiceRegistryBuilder.destroy(registry); //destroys the registry
-            throw new ExceptionInInitializerError("SessionFactory creation failed: " + ex.getMessage());
+            for (BatchCommand command : commands) {
+                if (command.isMutation()) {
+                    if (mutations.add(command) > 0) {
+                        countrySnapshots.invalidate();
+                    }
+                    continue;
+                }
+                // Reads and file operations see every change queued before them
+                if (mutations.flush() > 0) {
+                    countrySnapshots.invalidate();
+                }
+                runBatchCommand(command);
+            }
+            if (mutations.flush() > 0) {
+                countrySnapshots.invalidate();
+            }
+        } catch (IOException | RuntimeException ex) {
+            countrySnapshots.invalidate();
+            System.out.printf("Batch stopped, uncommitted changes rolled back: %s %n", ex.getMessage());
+            return 1;
         }
+        System.out.printf("%d operations, %d changes committed in %d ms %n",
+                commands.size(),
+                mutations.getCommittedCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return 0;
+    }
 
+    //Runs a batch operation that does not change countries one by one
+    private static void runBatchCommand(BatchCommand command) throws IOException {
+        switch (command.name()) {
+            case "view":
+                Writer out = new OutputStreamWriter(System.out);
+                renderAllCountries(out);
+                out.flush();
+                break;
+            case "statistics":
+                displayStatistics(countryStatistics.summary());
+                displayDistribution(countryStatistics.distribution());
+                break;
+            case "import":
+                importCountries(Paths.get(command.file()));
+                break;
+            case "indicators":
+                importIndicators(Paths.get(command.file()));
+                break;
+            case "export":
+                exportCountries(Paths.get(command.file()));
+                break;
+            default:
+                throw new IllegalArgumentException(command.source() + ": unsupported operation " + command.name());
+        }
     }
 
+    //Publishes metrics over HTTP when countrymgr.metrics.port is set, and/or to the file in countrymgr.metrics.file
+    private static void startMetrics() throws IOException {
+        HibernateMetrics.bind(sessionFactory, metricsRegistry);
+
+        Integer port = Integer.getInteger("countrymgr.metrics.port");
+        if (port != null) {
+            new PrometheusHttpExporter(metricsRegistry, port);
+        }
+        String file = System.getProperty("countrymgr.metrics.file");
+        if (file != null) {
+            new PrometheusFileExporter(metricsRegistry, Paths.get(file),
+                    Long.getLong("countrymgr.metrics.intervalSeconds", 15));
+        }
+    }
 
-    public static void main(String[] args) {
-        run();
+    //Serves countries and statistics as JSON when countrymgr.http.port is set
+    private static void startHttpServer() throws IOException {
+        Integer port = Integer.getInteger("countrymgr.http.port");
+        if (port != null) {
+            CountryHttpServer server = new CountryHttpServer(sessionFactory, countryRepository, countryStatistics,
+                    countrySnapshots::invalidate, port);
+            System.out.printf("Serving countries at http://localhost:%d/countries %n", server.getPort());
+        }
     }
 
     //Creates menu for the user in the console
     static {
         menuOptions.put("view", "View Countries data.");
         menuOptions.put("statistics", "View Internet users and literacy rate's statistics.");
+        menuOptions.put("top", "View the countries with the highest or lowest internet users or literacy rate.");
+        menuOptions.put("range", "View the countries with internet users or literacy rate within a range.");
         menuOptions.put("edit", "Edit country's information.");
         menuOptions.put("add", "Add a new country.");
         menuOptions.put("delete", "Delete a country.");
+        menuOptions.put("import", "Import countries from a CSV or World Bank table file.");
+        menuOptions.put("export", "Export the countries table to a file.");
+        menuOptions.put("indicators", "Import yearly indicator values from a CSV file.");
+        menuOptions.put("series", "View the yearly values of an indicator for a country.");
+        menuOptions.put("snapshot", "Load the countries into memory to speed up top, range and distributions.");
+        menuOptions.put("pool", "View database connection pool usage.");
+        menuOptions.put("queries", "View the slowest recent SQL statements.");
+        menuOptions.put("metrics", "View application and Hibernate metrics.");
         menuOptions.put("quit", "Exit the program");
     }
 
@@ -67,133 +221,196 @@ public class Application {
         return choice.trim().toLowerCase();
     }
 
-    //Fetch all countries from the database
-    private static List<Country> fetchAllCountries() {
-        // Open a session
-        Session session = sessionFactory.openSession();
+    //Shows data in a formatted table
+    public static void displayCountries(List<CountryView> countries) {
+        CountryTableRenderer table = new CountryTableRenderer(new OutputStreamWriter(System.out));
+        table.header();
+        for (CountryView country : countries) {
+            table.row(country);
+        }
+        table.flush();
+    }
 
-        // Create CriteriaBuilder
-        CriteriaBuilder builder = session.getCriteriaBuilder();
+    //Shows countries one page at a time until the user goes back to the menu
+    private static void browseCountries() throws IOException {
+        CountryPager pager = new CountryPager(countryRepository, PAGE_SIZE);
+        displayCountries(pager.first());
+        String input;
+        do {
+            System.out.println("Type n for the next page, p for the previous page or press Enter to go back: ");
+            input = readerBuffer.readLine().trim().toLowerCase();
+        } while (changePage(pager, input));
+    }
 
-        // Create CriteriaQuery
-        CriteriaQuery<Country> criteria = builder.createQuery(Country.class);
+    //Moves the pager for "n" and "p" and returns false for any other input
+    private static boolean changePage(CountryPager pager, String input) {
+        switch (input) {
+            case "n":
+                if (pager.next()) {
+                    displayCountries(pager.current());
+                } else {
+                    System.out.println("This is the last page.");
+                }
+                return true;
+            case "p":
+                if (pager.previous()) {
+                    displayCountries(pager.current());
+                } else {
+                    System.out.println("This is the first page.");
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
 
-        // Specify criteria root
-        criteria.from(Country.class);
+    private static void renderAllCountries(Writer out) {
+        CountryTableRenderer table = new CountryTableRenderer(out);
+        table.header();
+        countryRepository.streamViews(table::row);
+        table.flush();
+    }
 
-        // Execute query
-        List<Country> countries = session.createQuery(criteria).getResultList();
+    //Writes the country table to a file chosen by the user
+    private static void exportCountries() throws IOException {
+        System.out.println("Introduce the path of the file to export to: ");
+        exportCountries(Paths.get(readerBuffer.readLine().trim()));
+    }
 
-        // Close the session
-        session.close();
+    private static void exportCountries(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            renderAllCountries(out);
+        }
+        System.out.printf("Countries exported to %s in %d ms %n",
+                file,
+                (System.nanoTime() - start) / 1_000_000);
+    }
 
-        return countries;
+    //Loads the in-memory snapshot of the countries and shows the statistics of its arrays
+    private static void loadSnapshot() {
+        long start = System.nanoTime();
+        CountrySnapshot snapshot = countrySnapshots.get();
+        System.out.printf("%d countries in memory, loaded in %d ms %n",
+                snapshot.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        displayStatistics(snapshot.statistics().toSummary());
     }
 
-    //Shows data in a formatted table
-    public static void displayCountries(List<Country> countries) {
-        System.out.println("----------------------------------------------------------------------------------");
-        System.out.println("                                 COUNTRY DATA                                     ");
-        System.out.println("---------------------------------------------------------------------------------------");
-        System.out.printf("%-5s %30s %25s %20s %n", "Code", "Name", "Internet Users", "Literacy Rate");
-        System.out.println("---------------------------------------------------------------------------------------");
-
-        for (Country country : countries) {
-            System.out.printf(
-                    "%-5s %30s %25s %20s\n",
-                    country.getCode(),
-                    country.getName(),
-                    formattedDecimal(country.getInternetUsers()),
-                    formattedDecimal(country.getAdultLiteracyRate())
-            );
-        }
-    }
-
-    //If there is a value we format to two decimals and place NULL if there is nothing.
-    private static String formattedDecimal(Double value) {
-        if (value == null) {
-            return "--";
-        }
-        return String.format("%.2f", value);
-    }
-
-    //Calculate the max and min of internet users and literacy rate to display the statistics after
-    public static void displayStatistics(List<Country> countries) {
-        Country maxInternetUsers = countries.stream()
-                .filter(country -> country.getInternetUsers() != null)
-                .max(Comparator.comparing(Country::getInternetUsers))
-                .orElse(null);
-
-        Country minInternetUsers = countries.stream()
-                .filter(country -> country.getInternetUsers() != null)
-                .min(Comparator.comparing(Country::getInternetUsers))
-                .orElse(null);
-
-        Country maxLiteracyRate = countries.stream()
-                .filter(country -> country.getAdultLiteracyRate() != null)
-                .max(Comparator.comparing(Country::getAdultLiteracyRate))
-                .orElse(null);
-
-        Country minLiteracyRate = countries.stream()
-                .filter(country -> country.getAdultLiteracyRate() != null)
-                .min(Comparator.comparing(Country::getAdultLiteracyRate))
-                .orElse(null);
-
-        double averageInternetUsers = countries.stream()
-                .filter(country -> country.getInternetUsers() != null)
-                .mapToDouble(Country::getInternetUsers)
-                .average()
-                .orElse(0.0);
-
-        double averageLiteracyRate = countries.stream()
-                .filter(country -> country.getAdultLiteracyRate() != null)
-                .mapToDouble(Country::getAdultLiteracyRate)
-                .average()
-                .orElse(0.0);
+    //Displays statistics, whether they were computed in memory or by the database
+    public static void displayStatistics(StatisticsSummary statistics) {
+        ColumnSummary internetUsers = statistics.get(CountryColumn.INTERNET_USERS);
+        ColumnSummary literacyRate = statistics.get(CountryColumn.ADULT_LITERACY_RATE);
 
         System.out.println("\n Statistics:");
 
         System.out.println("--------------------------------------------------------------------");
         System.out.printf("Average Internet users : %.2f  %n",
-                averageInternetUsers);
-        System.out.printf("Maximum internet users : %.2f (%s) %n",
-                maxInternetUsers.getInternetUsers(),
-                maxInternetUsers.getName());
-        System.out.printf("Minimum internet users : %.2f (%s) %n",
-                minInternetUsers.getInternetUsers(),
-                minInternetUsers.getName());
+                internetUsers.average());
+        displayExtremum("Maximum internet users", internetUsers.max(), internetUsers.maxName(), internetUsers);
+        displayExtremum("Minimum internet users", internetUsers.min(), internetUsers.minName(), internetUsers);
 
         System.out.printf("Average Literacy Rate : %.2f  %n",
-                averageLiteracyRate);
-        System.out.printf("Maximum Literacy rate : %.2f (%s) %n",
-                maxLiteracyRate.getInternetUsers(),
-                maxLiteracyRate.getName());
-        System.out.printf("Minimum Literacy rate : %.2f (%s) %n",
-                minLiteracyRate.getAdultLiteracyRate(),
-                minLiteracyRate.getName());
+                literacyRate.average());
+        displayExtremum("Maximum Literacy rate", literacyRate.max(), literacyRate.maxName(), literacyRate);
+        displayExtremum("Minimum Literacy rate", literacyRate.min(), literacyRate.minName(), literacyRate);
     }
 
-    //Retrieve a contact depending on the code provided
-    private static Country fetchCountryByCode(String code) {
-        //Open a session
-        Session session = sessionFactory.openSession();
+    //Displays the median, 90th and 99th percentiles and a histogram of each column
+    public static void displayDistribution(CountryDistribution distribution) {
+        displayDistribution("Internet users", distribution.get(CountryColumn.INTERNET_USERS));
+        displayDistribution("Literacy rate", distribution.get(CountryColumn.ADULT_LITERACY_RATE));
+    }
+
+    private static void displayDistribution(String title, ColumnDistribution column) {
+        System.out.printf("%n%s distribution (%d values):%n", title, column.getCount());
+        System.out.println("--------------------------------------------------------------------");
+        if (column.getCount() == 0) {
+            System.out.println("No values");
+            return;
+        }
+        System.out.printf("Median : %.2f   90th percentile : %.2f   99th percentile : %.2f %n",
+                column.getMedian(),
+                column.quantile(0.9),
+                column.quantile(0.99));
+
+        Histogram histogram = column.getHistogram();
+        long largest = 1;
+        for (int bucket = 0; bucket < histogram.getBucketCount(); bucket++) {
+            largest = Math.max(largest, histogram.getCount(bucket));
+        }
+        for (int bucket = 0; bucket < histogram.getBucketCount(); bucket++) {
+            long count = histogram.getCount(bucket);
+            System.out.printf("%6.2f - %6.2f | %-40s %d %n",
+                    histogram.getBucketLowerBound(bucket),
+                    histogram.getBucketUpperBound(bucket),
+                    "#".repeat((int) (40 * count / largest)),
+                    count);
+        }
+        if (histogram.getUnderflowCount() + histogram.getOverflowCount() > 0) {
+            System.out.printf("Below range : %d   Above range : %d %n",
+                    histogram.getUnderflowCount(),
+                    histogram.getOverflowCount());
+        }
+    }
 
-        //Retrieve the persistent object (or null if not found)
-        Country country = session.get(Country.class, code);
+    //Prints a max or min line, or "--" when the column has no values at all
+    private static void displayExtremum(String title, double value, String name, ColumnSummary column) {
+        if (column.isEmpty()) {
+            System.out.printf("%s : -- %n", title);
+            return;
+        }
+        System.out.printf("%s : %.2f (%s) %n", title, value, name);
+    }
+
+    //Shows the top countries by a column chosen by the user
+    private static void displayTopCountries() throws IOException {
+        try {
+            CountryColumn column = promptColumn();
+            System.out.println("How many countries: ");
+            int count = Integer.parseInt(readerBuffer.readLine().trim());
+            System.out.println("Highest or lowest values first (h/l): ");
+            boolean descending = !readerBuffer.readLine().trim().equalsIgnoreCase("l");
+            displayCountries(countryQueryService.topK(column, count, descending));
+        } catch (IllegalArgumentException ex) {
+            System.out.printf("Invalid input: %s %n", ex.getMessage());
+        }
+    }
 
-        //Close the session
-        session.close();
+    //Shows the countries with a value of a column chosen by the user within a range
+    private static void displayCountriesInRange() throws IOException {
+        try {
+            CountryColumn column = promptColumn();
+            System.out.println("Introduce the minimum value: ");
+            double min = Double.parseDouble(readerBuffer.readLine().trim());
+            System.out.println("Introduce the maximum value: ");
+            double max = Double.parseDouble(readerBuffer.readLine().trim());
+            displayCountries(countryQueryService.range(column, min, max, RANGE_LIMIT));
+        } catch (IllegalArgumentException ex) {
+            System.out.printf("Invalid input: %s %n", ex.getMessage());
+        }
+    }
 
-        //Return the object
-        return country;
+    private static CountryColumn promptColumn() throws IOException {
+        System.out.println("Internet users or literacy rate (internet/literacy): ");
+        return CountryColumn.parse(readerBuffer.readLine());
+    }
+
+    //Retrieve a contact depending on the code provided
+    private static Country fetchCountryByCode(String code) {
+        return countryRepository.fetchByCode(code);
     }
 
     //Saves and returns a Country code picked by the user
     private static String countryCode() throws IOException {
-        displayCountries(fetchAllCountries());
-        System.out.println("Introduce the country code of the country you want to edit: ");
-        String code =  readerBuffer.readLine().trim().toUpperCase();
-        return code;
+        CountryPager pager = new CountryPager(countryRepository, PAGE_SIZE);
+        displayCountries(pager.first());
+        String input;
+        do {
+            System.out.println("Introduce the country code of the country you want to edit (n/p to change page): ");
+            input = readerBuffer.readLine().trim();
+        } while (changePage(pager, input.toLowerCase()));
+        return input.toUpperCase();
     }
 
     //Saves and returns a new Country information to edit country chosen by user
@@ -229,19 +446,14 @@ public class Application {
         System.out.printf("%nLiteracy Rate: %.2f %n", country.getAdultLiteracyRate());
 
         System.out.printf("%n%nUpdating...%n%n");
-        Session session = sessionFactory.openSession();
         Country newCountry = countryUpdatedInfo(country);
-        session.beginTransaction();
-        session.merge(newCountry);
-        session.getTransaction().commit();
+        countryRepository.update(newCountry);
+        countrySnapshots.invalidate();
         System.out.println("Country update complete!");
-        session.close();
     }
 
     //Allows user to add country data
     private static void addCountry() throws IOException {
-        Session session = sessionFactory.openSession();
-
         System.out.println("Introduce the new country code: ");
         String code = readerBuffer.readLine().trim().toUpperCase();
         if (code.length() != 3) {
@@ -259,26 +471,145 @@ public class Application {
                 .withInternetUsers(newInternetUsers)
                 .withAdultLiteracyRate(newAdultLiteracy)
                 .build();
-        session.beginTransaction();
-        session.save(newCountry);
-        session.getTransaction().commit();
+        countryRepository.save(newCountry);
+        countrySnapshots.invalidate();
         System.out.println("Country added successfully!");
-        session.close();
     }
 
     //Allows user to delete country data
     private static void deleteCountry() throws IOException {
         String code = countryCode();
-        Country country = fetchCountryByCode(code);
-        Session session = sessionFactory.openSession();
-        session.beginTransaction();
         System.out.printf("%n%nDeleting...%n%n");
-        session.delete(country);
-        session.getTransaction().commit();
+        boolean deleted = countryRepository.delete(code);
+        countrySnapshots.invalidate();
+        if (!deleted) {
+            System.out.printf("no country found %s %n", code);
+            return;
+        }
         System.out.println("Country deleted successfully!");
-        session.close();
     }
 
+    //Bulk imports countries from a file chosen by the user
+    private static void importCountries() throws IOException {
+        System.out.println("Introduce the path of the file to import: ");
+        Path file = Paths.get(readerBuffer.readLine().trim());
+        if (!Files.isRegularFile(file)) {
+            System.out.printf("File not found: %s %n", file);
+            return;
+        }
+        try {
+            importCountries(file);
+        } catch (RuntimeException ex) {
+            System.out.printf("Import failed: %s %n", ex.getMessage());
+        }
+    }
+
+    private static void importCountries(Path file) throws IOException {
+        System.out.printf("%n%nImporting...%n%n");
+        long start = System.nanoTime();
+        long imported;
+        try {
+            imported = new CountryImporter(sessionFactory, IMPORT_CHUNK_SIZE).importFile(file);
+        } finally {
+            // Stateless inserts bypass the second-level cache and the entity listeners, and a failed import
+            // may still have committed its first chunks, so everything derived from the table is stale now
+            countryRepository.evictAll();
+            countrySnapshots.invalidate();
+            countryStatistics.invalidate();
+        }
+        System.out.printf("%d countries imported in %d ms %n",
+                imported,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //Bulk imports yearly indicator values from a file chosen by the user
+    private static void importIndicators() throws IOException {
+        System.out.println("Introduce the path of the file to import (country,indicator,year,value): ");
+        Path file = Paths.get(readerBuffer.readLine().trim());
+        if (!Files.isRegularFile(file)) {
+            System.out.printf("File not found: %s %n", file);
+            return;
+        }
+        try {
+            importIndicators(file);
+        } catch (RuntimeException ex) {
+            System.out.printf("Import failed: %s %n", ex.getMessage());
+        }
+    }
+
+    private static void importIndicators(Path file) throws IOException {
+        System.out.printf("%n%nImporting...%n%n");
+        long start = System.nanoTime();
+        long imported;
+        try {
+            imported = new IndicatorImporter(sessionFactory, IMPORT_CHUNK_SIZE).importFile(file);
+        } finally {
+            // Indicators added by the stateless session are not in the second-level cache
+            sessionFactory.getCache().evictEntityData(Indicator.class);
+        }
+        System.out.printf("%d indicator values imported in %d ms %n",
+                imported,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //Shows every year of an indicator for a country chosen by the user
+    private static void displaySeries() throws IOException {
+        System.out.println("Introduce the country code: ");
+        String code = readerBuffer.readLine().trim().toUpperCase();
+        System.out.println("Introduce the indicator, e.g. IT.NET.USER.ZS: ");
+        String indicatorId = readerBuffer.readLine().trim();
+        List<IndicatorObservation> series = indicatorRepository.fetchSeries(code, indicatorId);
+        if (series.isEmpty()) {
+            System.out.printf("No values of %s for %s %n", indicatorId, code);
+            return;
+        }
+        Indicator indicator = indicatorRepository.fetchIndicator(indicatorId);
+        System.out.printf("%n%s, %s:%n", code, indicator == null ? indicatorId : indicator.getName());
+        System.out.println("--------------------------------------------------------------------");
+        for (IndicatorObservation observation : series) {
+            System.out.printf("%d : %s %n",
+                    observation.year(),
+                    observation.value() == null ? "--" : String.format("%.2f", observation.value()));
+        }
+    }
+
+    //Shows how many pooled connections are in use
+    private static void displayConnectionPool() {
+        ConnectionPoolMetrics pool = ConnectionPoolMetrics.read(sessionFactory);
+        if (pool == null) {
+            System.out.println("No connection pool configured.");
+            return;
+        }
+        System.out.printf("%nConnection pool '%s':%n", pool.poolName());
+        System.out.println("--------------------------------------------------------------------");
+        System.out.printf("Active connections      : %d %n", pool.activeConnections());
+        System.out.printf("Idle connections        : %d %n", pool.idleConnections());
+        System.out.printf("Total connections       : %d (min idle %d, max %d) %n",
+                pool.totalConnections(),
+                pool.minimumIdle(),
+                pool.maximumPoolSize());
+        System.out.printf("Threads awaiting a connection : %d %n", pool.threadsAwaitingConnection());
+    }
+
+    //Shows the slowest of the statements kept by the query log
+    private static void displaySlowestStatements() {
+        QueryLog queryLog = ProfilingConnectionProvider.queryLog(sessionFactory);
+        if (queryLog == null) {
+            System.out.println("Statement profiling is not configured.");
+            return;
+        }
+        List<StatementRecord> statements = queryLog.recent();
+        statements.sort(Comparator.comparingLong(StatementRecord::elapsedNanos).reversed());
+
+        System.out.printf("%n%d statements executed, %d slow statements not logged (threshold %d ms)%n",
+                queryLog.getRecordedCount(),
+                queryLog.getDroppedCount(),
+                queryLog.getThresholdMillis());
+        System.out.println("--------------------------------------------------------------------");
+        for (StatementRecord statement : statements.subList(0, Math.min(10, statements.size()))) {
+            System.out.println(statement);
+        }
+    }
 
     public static void run() {
 
@@ -288,10 +619,17 @@ public class Application {
                 choice = promptAction();
                 switch (choice) {
                     case "view":
-                        displayCountries(fetchAllCountries());
+                        browseCountries();
                         break;
                     case "statistics":
-                        displayStatistics(fetchAllCountries());
+                        displayStatistics(countryStatistics.summary());
+                        displayDistribution(countryStatistics.distribution());
+                        break;
+                    case "top":
+                        displayTopCountries();
+                        break;
+                    case "range":
+                        displayCountriesInRange();
                         break;
                     case "edit":
                         editCountry();
@@ -300,9 +638,33 @@ public class Application {
                         addCountry();
                         break;
                     case "delete":
-                        displayStatistics(fetchAllCountries());
+                        displayStatistics(countryStatistics.summary());
                         deleteCountry();
                         break;
+                    case "import":
+                        importCountries();
+                        break;
+                    case "export":
+                        exportCountries();
+                        break;
+                    case "indicators":
+                        importIndicators();
+                        break;
+                    case "series":
+                        displaySeries();
+                        break;
+                    case "snapshot":
+                        loadSnapshot();
+                        break;
+                    case "pool":
+                        displayConnectionPool();
+                        break;
+                    case "queries":
+                        displaySlowestStatements();
+                        break;
+                    case "metrics":
+                        System.out.println(PrometheusTextFormat.format(metricsRegistry));
+                        break;
                     case "quit":
                         System.out.println("See you later alligator :)");
                         break;
@@ -0,0 +1,37 @@
+package com.teamtreehouse.countrymgr;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.service.ServiceRegistry;
+
+import java.util.Collections;
+import java.util.Map;
+
+//Builds SessionFactory instances from hibernate.cfg.xml
+public final class HibernateUtil {
+
+    private HibernateUtil() {
+    }
+
+    //Builds a Session Factory exactly as configured in hibernate.cfg.xml
+    public static SessionFactory buildSessionFactory() {
+        return buildSessionFactory(Collections.emptyMap());
+    }
+
+    //Builds a Session Factory from hibernate.cfg.xml, replacing the given settings, e.g. the connection url
+    public static SessionFactory buildSessionFactory(Map<String, ?> overrides) {
+        final ServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .configure()
+                .applySettings(overrides)
+                .build();
+        try {
+            return new MetadataSources(registry)
+                    .buildMetadata()
+                    .buildSessionFactory();
+        } catch (Exception ex) { //Logs exception
+            StandardServiceRegistryBuilder.destroy(registry); //destroys the registry
+            throw new ExceptionInInitializerError("SessionFactory creation failed: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.teamtreehouse.countrymgr.analytics;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import com.teamtreehouse.countrymgr.stats.ColumnDistribution;
+import com.teamtreehouse.countrymgr.stats.ColumnStatistics;
+import com.teamtreehouse.countrymgr.stats.CountryDistribution;
+import com.teamtreehouse.countrymgr.stats.CountryStatistics;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+//Immutable column-oriented copy of the Country table: one array per column and a BitSet marking the
+//missing values of each numeric column. Rows are in code order, so a row number also orders by code.
+//Analytics run over primitive arrays, without a boxed Double or an object per row
+public final class CountrySnapshot {
+    private static final CountryColumn[] COLUMNS = CountryColumn.values();
+    // From one row in this many on, a single merge sort of the candidates beats a heap keeping most of them
+    private static final int SORT_FRACTION = 4;
+
+    private final String[] codes;
+    private final String[] names;
+    private final double[][] values;
+    private final BitSet[] nulls;
+
+    private CountrySnapshot(String[] codes, String[] names, double[][] values, BitSet[] nulls) {
+        this.codes = codes;
+        this.names = names;
+        this.values = values;
+        this.nulls = nulls;
+    }
+
+    //Reads every country from the database, in code order, one row at a time
+    public static CountrySnapshot load(CountryRepository repository) {
+        Builder builder = new Builder();
+        repository.streamViews(builder::add);
+        return builder.build();
+    }
+
+    //Builds a snapshot from rows already in code order
+    public static CountrySnapshot of(Iterable<CountryView> countries) {
+        Builder builder = new Builder();
+        for (CountryView country : countries) {
+            builder.add(country);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public String code(int row) {
+        return codes[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public boolean isNull(CountryColumn column, int row) {
+        return nulls[column.ordinal()].get(row);
+    }
+
+    //Value of a column in a row; NaN when it is missing
+    public double value(CountryColumn column, int row) {
+        return isNull(column, row) ? Double.NaN : values[column.ordinal()][row];
+    }
+
+    public CountryView view(int row) {
+        return new CountryView(codes[row], names[row], boxed(CountryColumn.INTERNET_USERS, row),
+                boxed(CountryColumn.ADULT_LITERACY_RATE, row));
+    }
+
+    private Double boxed(CountryColumn column, int row) {
+        return isNull(column, row) ? null : values[column.ordinal()][row];
+    }
+
+    //Statistics of every column in one pass per column over its array
+    public CountryStatistics statistics() {
+        CountryStatistics statistics = new CountryStatistics();
+        statistics.addRows(codes.length);
+        for (CountryColumn column : COLUMNS) {
+            ColumnStatistics target = statistics.get(column);
+            double[] columnValues = values[column.ordinal()];
+            BitSet missing = nulls[column.ordinal()];
+            for (int row = 0; row < columnValues.length; row++) {
+                if (missing.get(row)) {
+                    target.acceptNull();
+                } else {
+                    target.accept(columnValues[row], names[row]);
+                }
+            }
+        }
+        return statistics;
+    }
+
+    //Distributions of every column over rows [from, to), one pass per column over its array
+    public CountryDistribution distribution(int from, int to) {
+        CountryDistribution distribution = new CountryDistribution();
+        for (CountryColumn column : COLUMNS) {
+            ColumnDistribution target = distribution.get(column);
+            double[] columnValues = values[column.ordinal()];
+            BitSet missing = nulls[column.ordinal()];
+            for (int row = missing.nextClearBit(from); row < to; row = missing.nextClearBit(row + 1)) {
+                target.accept(columnValues[row]);
+            }
+        }
+        return distribution;
+    }
+
+    //Rows with a value of the column between min and max, inclusive, in code order
+    public int[] filter(CountryColumn column, double min, double max) {
+        double[] columnValues = values[column.ordinal()];
+        BitSet missing = nulls[column.ordinal()];
+        int[] rows = new int[columnValues.length];
+        int count = 0;
+        for (int row = 0; row < columnValues.length; row++) {
+            double value = columnValues[row];
+            if (value >= min && value <= max && !missing.get(row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    //Rows with a value of the column, sorted by that value. Ties are in code order when ascending and
+    //in reverse code order when descending, as in the database queries
+    public int[] sortedRows(CountryColumn column, boolean descending) {
+        double[] columnValues = values[column.ordinal()];
+        BitSet missing = nulls[column.ordinal()];
+        int[] rows = new int[columnValues.length - missing.cardinality()];
+        int count = 0;
+        for (int row = missing.nextClearBit(0); row < columnValues.length; row = missing.nextClearBit(row + 1)) {
+            rows[count++] = row;
+        }
+        sortByValue(rows, columnValues);
+        if (descending) {
+            reverse(rows);
+        }
+        return rows;
+    }
+
+    //The k rows with the highest (descending) or lowest values of the column, best first.
+    //Keeps a heap of k rows instead of sorting every row, unless k is a large share of them
+    public int[] topK(CountryColumn column, int k, boolean descending) {
+        double[] columnValues = values[column.ordinal()];
+        if ((long) k * SORT_FRACTION >= columnValues.length) {
+            int[] sorted = sortedRows(column, descending);
+            return sorted.length <= k ? sorted : Arrays.copyOf(sorted, k);
+        }
+        BitSet missing = nulls[column.ordinal()];
+        RowHeap heap = new RowHeap(k, columnValues, descending);
+        for (int row = missing.nextClearBit(0); row < columnValues.length; row = missing.nextClearBit(row + 1)) {
+            heap.offer(row);
+        }
+        return heap.sorted();
+    }
+
+    //Rows with a value of the column between min and max, lowest first, at most limit of them
+    public int[] range(CountryColumn column, double min, double max, int limit) {
+        double[] columnValues = values[column.ordinal()];
+        if ((long) limit * SORT_FRACTION >= columnValues.length) {
+            int[] rows = filter(column, min, max);
+            sortByValue(rows, columnValues);
+            return rows.length <= limit ? rows : Arrays.copyOf(rows, limit);
+        }
+        BitSet missing = nulls[column.ordinal()];
+        RowHeap heap = new RowHeap(limit, columnValues, false);
+        for (int row = missing.nextClearBit(0); row < columnValues.length; row = missing.nextClearBit(row + 1)) {
+            double value = columnValues[row];
+            if (value >= min && value <= max) {
+                heap.offer(row);
+            }
+        }
+        return heap.sorted();
+    }
+
+    // Stable, so rows in code order with equal values stay in code order
+    private static void sortByValue(int[] rows, double[] keys) {
+        mergeSort(rows, new int[rows.length], 0, rows.length, keys);
+    }
+
+    private static void mergeSort(int[] rows, int[] buffer, int from, int to, double[] keys) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, buffer, from, middle, keys);
+        mergeSort(rows, buffer, middle, to, keys);
+        if (keys[rows[middle - 1]] <= keys[rows[middle]]) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && keys[buffer[left]] <= keys[buffer[right]])) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static void reverse(int[] rows) {
+        for (int i = 0, j = rows.length - 1; i < j; i++, j--) {
+            int row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+        }
+    }
+
+    //Binary heap of at most k row numbers whose root is the worst row kept
+    private static final class RowHeap {
+        private final int[] rows;
+        private final double[] keys;
+        private final boolean descending;
+        private int size;
+
+        RowHeap(int k, double[] keys, boolean descending) {
+            if (k < 1) {
+                throw new IllegalArgumentException("k must be positive: " + k);
+            }
+            this.rows = new int[k];
+            this.keys = keys;
+            this.descending = descending;
+        }
+
+        //True when row a comes before row b in the requested order
+        private boolean better(int a, int b) {
+            double keyA = keys[a];
+            double keyB = keys[b];
+            if (keyA != keyB) {
+                return descending ? keyA > keyB : keyA < keyB;
+            }
+            return descending ? a > b : a < b;
+        }
+
+        void offer(int row) {
+            if (size < rows.length) {
+                rows[size] = row;
+                siftUp(size++);
+            } else if (better(row, rows[0])) {
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!better(rows[parent], rows[index])) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && better(rows[worst], rows[left])) {
+                    worst = left;
+                }
+                if (right < size && better(rows[worst], rows[right])) {
+                    worst = right;
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+        }
+
+        //The kept rows, best first; empties the heap
+        int[] sorted() {
+            int[] best = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                best[i] = rows[0];
+                rows[0] = rows[--size];
+                siftDown(0);
+            }
+            return best;
+        }
+    }
+
+    //Grows the column arrays while rows are added, then trims them
+    private static final class Builder {
+        private String[] codes = new String[1024];
+        private String[] names = new String[1024];
+        private final double[][] values = new double[COLUMNS.length][1024];
+        private final BitSet[] nulls = new BitSet[COLUMNS.length];
+        private int size;
+
+        Builder() {
+            for (int i = 0; i < nulls.length; i++) {
+                nulls[i] = new BitSet();
+            }
+        }
+
+        void add(CountryView country) {
+            if (size == codes.length) {
+                int capacity = size + (size >> 1);
+                codes = Arrays.copyOf(codes, capacity);
+                names = Arrays.copyOf(names, capacity);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Arrays.copyOf(values[i], capacity);
+                }
+            }
+            codes[size] = country.code();
+            names[size] = country.name();
+            for (CountryColumn column : COLUMNS) {
+                Double value = column.valueOf(country);
+                if (value == null) {
+                    nulls[column.ordinal()].set(size);
+                } else {
+                    values[column.ordinal()][size] = value;
+                }
+            }
+            size++;
+        }
+
+        CountrySnapshot build() {
+            double[][] trimmed = new double[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                trimmed[i] = Arrays.copyOf(values[i], size);
+            }
+            return new CountrySnapshot(Arrays.copyOf(codes, size), Arrays.copyOf(names, size), trimmed, nulls);
+        }
+    }
+}
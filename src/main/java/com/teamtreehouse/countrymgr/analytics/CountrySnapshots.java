@@ -0,0 +1,76 @@
+package com.teamtreehouse.countrymgr.analytics;
+
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Holds the current CountrySnapshot. It is loaded on first use; once loaded, invalidate() drops it after every
+//write and reloads it on a background thread. Until the reload finishes current() returns null, so readers
+//fall back to the database instead of waiting. A burst of writes causes a single reload
+public class CountrySnapshots {
+    private final CountryRepository repository;
+    private final Object loadLock = new Object();
+    private volatile CountrySnapshot snapshot;
+    // Bumped by every invalidate(), so a load that overlaps a write is not kept
+    private final AtomicLong generation = new AtomicLong();
+    // Set by the first get(); before that nobody asked for a snapshot and writes do not load one
+    private volatile boolean enabled;
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "country-snapshot-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CountrySnapshots(CountryRepository repository) {
+        this.repository = repository;
+    }
+
+    //The current snapshot, loading it from the database if there is none
+    public CountrySnapshot get() {
+        enabled = true;
+        CountrySnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            current = snapshot;
+            if (current == null) {
+                long loadedGeneration = generation.get();
+                current = CountrySnapshot.load(repository);
+                if (loadedGeneration == generation.get()) {
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    //The current snapshot, or null if none is loaded or a reload is still running
+    public CountrySnapshot current() {
+        return snapshot;
+    }
+
+    //Drops the snapshot after the Country table changed and, if one was in use, queues its reload
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+        if (enabled && reloadQueued.compareAndSet(false, true)) {
+            reloader.execute(this::reload);
+        }
+    }
+
+    private void reload() {
+        // Cleared first: a write during the load discards it and queues the next one
+        reloadQueued.set(false);
+        try {
+            get();
+        } catch (RuntimeException ex) {
+            // Readers keep using the database; the next write or get() tries again
+            System.err.printf("Country snapshot reload failed: %s %n", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.teamtreehouse.countrymgr.batch;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//One parsed batch operation, e.g. edit --code ARG --name Argentina, with where it came from for error messages
+public record BatchCommand(String name, Map<String, String> options, List<String> arguments, String source) {
+    // Operations that change countries and are grouped into shared transactions
+    private static final Set<String> MUTATIONS = Set.of("add", "edit", "delete");
+    // Written in place of a number to clear the value, as in the World Bank tables
+    private static final String MISSING_VALUE = "--";
+
+    public BatchCommand {
+        options = Map.copyOf(options);
+        arguments = List.copyOf(arguments);
+    }
+
+    public boolean isMutation() {
+        return MUTATIONS.contains(name);
+    }
+
+    public boolean hasOption(String option) {
+        return options.containsKey(option);
+    }
+
+    public String option(String option) {
+        String value = options.get(option);
+        if (value == null) {
+            throw new IllegalArgumentException(source + ": " + name + " needs --" + option);
+        }
+        return value;
+    }
+
+    //A numeric option, or null when it is given as "--"
+    public Double doubleOption(String option) {
+        String value = option(option);
+        if (value.equals(MISSING_VALUE)) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(source + ": --" + option + " is not a number: '" + value + "'");
+        }
+    }
+
+    //The country code option, upper cased like the codes typed in the interactive menu
+    public String code() {
+        return option("code").toUpperCase();
+    }
+
+    //The column option of a range delete
+    public CountryColumn column() {
+        try {
+            return CountryColumn.parse(option("column"));
+        } catch (IllegalArgumentException ex) {
+            if (!hasOption("column")) {
+                throw ex;
+            }
+            throw new IllegalArgumentException(source + ": " + ex.getMessage());
+        }
+    }
+
+    //The single file argument of import, export and script
+    public String file() {
+        if (arguments.size() != 1) {
+            throw new IllegalArgumentException(source + ": " + name + " needs exactly one file");
+        }
+        return arguments.get(0);
+    }
+}
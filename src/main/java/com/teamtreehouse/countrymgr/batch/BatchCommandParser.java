@@ -0,0 +1,260 @@
+package com.teamtreehouse.countrymgr.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Parses batch operations from command line arguments, where ";" separates operations, or from scripts with
+//one operation per line. Blank lines and lines starting with # are skipped; double quotes group words.
+//Every operation is checked before any is run, so a typo fails the batch before it changes anything.
+//A script cannot run itself, directly or through other scripts.
+//Operations:
+//  view | statistics | import <file> | indicators <file> | export <file> | script <file>
+//  add --code <code> --name <name> [--internet <value>] [--literacy <value>]
+//  edit --code <code> [--name <name>] [--internet <value>] [--literacy <value>]
+//  delete --code <code>
+//  delete --column <internet|literacy> --min <value> --max <value>   every country with a value in the range
+//Values may be "--" to leave them missing
+public final class BatchCommandParser {
+    private static final String SEPARATOR = ";";
+    private static final Set<String> COMMANDS =
+            Set.of("view", "statistics", "import", "indicators", "export", "script", "add", "edit", "delete");
+    private static final Set<String> COUNTRY_OPTIONS = Set.of("code", "name", "internet", "literacy");
+    private static final Set<String> RANGE_OPTIONS = Set.of("column", "min", "max");
+    // Longest chain of scripts running scripts
+    private static final int MAX_SCRIPT_DEPTH = 16;
+
+    private BatchCommandParser() {
+    }
+
+    //Parses operations given as program arguments; script operations are expanded in place, their files
+    //resolved against the working directory
+    public static List<BatchCommand> parseArguments(String[] args) throws IOException {
+        List<BatchCommand> commands = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        Path directory = Paths.get("").toAbsolutePath();
+        int number = 1;
+        for (String arg : args) {
+            if (arg.equals(SEPARATOR)) {
+                addCommand(commands, tokens, "operation " + number++, directory, List.of());
+                tokens.clear();
+            } else {
+                tokens.add(arg);
+            }
+        }
+        addCommand(commands, tokens, "operation " + number, directory, List.of());
+        return commands;
+    }
+
+    //Parses a script file; script operations in it are expanded in place, their files resolved against the
+    //directory of the script that names them
+    public static List<BatchCommand> parseScript(Path file) throws IOException {
+        return parseScript(file.toAbsolutePath().normalize(), List.of());
+    }
+
+    // includes are the scripts being expanded around this one, outermost first
+    private static List<BatchCommand> parseScript(Path file, List<Path> includes) throws IOException {
+        List<Path> nested = new ArrayList<>(includes);
+        nested.add(file);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parseLines(reader, file.toString(), file.getParent(), nested, Integer.MAX_VALUE);
+        }
+    }
+
+    //Parses one operation per line, e.g. from a request body; origin names the text in error messages.
+    //Never reads files: script operations are rejected, as a caller could name any file on this machine
+    public static List<BatchCommand> parseScript(Reader script, String origin) throws IOException {
+        return parseScript(script, origin, Integer.MAX_VALUE);
+    }
+
+    //The same, but stops reading after maxCommands + 1 operations, so a caller can tell the text has too many
+    //without holding all of them
+    public static List<BatchCommand> parseScript(Reader script, String origin, int maxCommands) throws IOException {
+        BufferedReader reader = script instanceof BufferedReader ? (BufferedReader) script : new BufferedReader(script);
+        return parseLines(reader, origin, null, List.of(), maxCommands);
+    }
+
+    // directory resolves script operations; null when they are not allowed
+    private static List<BatchCommand> parseLines(BufferedReader reader, String origin, Path directory,
+                                                 List<Path> includes, int maxCommands) throws IOException {
+        List<BatchCommand> commands = new ArrayList<>();
+        String line;
+        int number = 0;
+        while (commands.size() <= maxCommands && (line = reader.readLine()) != null) {
+            number++;
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                String source = origin + ":" + number;
+                addCommand(commands, tokenize(trimmed, source), source, directory, includes);
+            }
+        }
+        return commands;
+    }
+
+    private static void addCommand(List<BatchCommand> commands, List<String> tokens, String source,
+                                   Path directory, List<Path> includes) throws IOException {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        BatchCommand command = parse(tokens, source);
+        if (!command.name().equals("script")) {
+            commands.add(command);
+            return;
+        }
+        if (directory == null) {
+            throw new IllegalArgumentException(source + ": script is not allowed here");
+        }
+        Path file = directory.resolve(command.file()).normalize();
+        if (includes.contains(file)) {
+            throw new IllegalArgumentException(source + ": " + command.file() + " is already being run");
+        }
+        // Also stops cycles the path check misses, e.g. through links
+        if (includes.size() >= MAX_SCRIPT_DEPTH) {
+            throw new IllegalArgumentException(source + ": scripts nested more than " + MAX_SCRIPT_DEPTH + " deep");
+        }
+        commands.addAll(parseScript(file, includes));
+    }
+
+    //Builds a command from its words: the operation name, then --option value pairs and plain arguments
+    static BatchCommand parse(List<String> tokens, String source) {
+        String name = tokens.get(0).toLowerCase();
+        if (!COMMANDS.contains(name)) {
+            throw new IllegalArgumentException(source + ": unknown operation '" + tokens.get(0) + "'");
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> arguments = new ArrayList<>();
+        for (int i = 1; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (!token.startsWith("--") || token.equals("--")) {
+                arguments.add(token);
+                continue;
+            }
+            String option = token.substring(2);
+            String value;
+            int equals = option.indexOf('=');
+            if (equals >= 0) {
+                value = option.substring(equals + 1);
+                option = option.substring(0, equals);
+            } else if (i + 1 < tokens.size()) {
+                value = tokens.get(++i);
+            } else {
+                throw new IllegalArgumentException(source + ": --" + option + " needs a value");
+            }
+            if (!COUNTRY_OPTIONS.contains(option) && !RANGE_OPTIONS.contains(option)) {
+                throw new IllegalArgumentException(source + ": unknown option --" + option);
+            }
+            options.put(option, value);
+        }
+        BatchCommand command = new BatchCommand(name, options, arguments, source);
+        validate(command);
+        return command;
+    }
+
+    //Reads every option the operation needs, so bad input fails here instead of halfway through a batch
+    private static void validate(BatchCommand command) {
+        switch (command.name()) {
+            case "import":
+            case "indicators":
+            case "export":
+            case "script":
+                command.file();
+                break;
+            case "add":
+                if (command.code().length() != 3) {
+                    throw new IllegalArgumentException(command.source() + ": codes are 3 characters long");
+                }
+                command.option("name");
+                validateValues(command);
+                break;
+            case "edit":
+                command.code();
+                validateValues(command);
+                break;
+            case "delete":
+                if (command.hasOption("code")) {
+                    command.code();
+                } else {
+                    validateRange(command);
+                }
+                break;
+            default:
+                break;
+        }
+        Set<String> allowed = !command.name().equals("delete") ? COUNTRY_OPTIONS
+                : command.hasOption("code") ? Set.of("code") : RANGE_OPTIONS;
+        for (String option : command.options().keySet()) {
+            if (command.isMutation() && !allowed.contains(option)) {
+                throw new IllegalArgumentException(command.source() + ": " + command.name() + " takes no --" + option
+                        + (command.hasOption("code") ? " with --code" : ""));
+            }
+        }
+        if (!command.isMutation() && !command.options().isEmpty()) {
+            throw new IllegalArgumentException(command.source() + ": " + command.name() + " takes no options");
+        }
+        if (command.isMutation() && !command.arguments().isEmpty()) {
+            throw new IllegalArgumentException(
+                    command.source() + ": unexpected " + String.join(" ", command.arguments()));
+        }
+    }
+
+    private static void validateValues(BatchCommand command) {
+        for (String option : Arrays.asList("internet", "literacy")) {
+            if (command.hasOption(option)) {
+                command.doubleOption(option);
+            }
+        }
+    }
+
+    private static void validateRange(BatchCommand command) {
+        if (!command.hasOption("column")) {
+            throw new IllegalArgumentException(command.source() + ": delete needs --code or --column");
+        }
+        command.column();
+        for (String option : Arrays.asList("min", "max")) {
+            if (command.doubleOption(option) == null) {
+                throw new IllegalArgumentException(command.source() + ": --" + option + " needs a number");
+            }
+        }
+    }
+
+    //Splits a line on whitespace, keeping words in double quotes together
+    static List<String> tokenize(String line, String source) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException(source + ": unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,262 @@
+package com.teamtreehouse.countrymgr.batch;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import jakarta.persistence.EntityExistsException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Collects add, edit and delete operations and applies them together, up to transactionSize per transaction,
+//instead of one transaction and round trip per change. If any operation fails, the whole pending group is
+//rolled back and the failure is rethrown naming the operation, also when the database only rejects it at
+//commit; groups committed before it stay committed. Runs of edits that only set values, and of deletes by code,
+//go to the database as bulk statements without loading any Country, as do range deletes. After the commit the
+//codes they changed go to the repository's row change listeners; only a range delete invalidates everything
+//derived from the table
+public class MutationBatch {
+    private final SessionFactory sessionFactory;
+    private final CountryRepository repository;
+    private final int transactionSize;
+    private final List<BatchCommand> pending = new ArrayList<>();
+    private long committed;
+
+    public MutationBatch(SessionFactory sessionFactory, CountryRepository repository, int transactionSize) {
+        if (transactionSize < 1) {
+            throw new IllegalArgumentException("transactionSize must be positive: " + transactionSize);
+        }
+        this.sessionFactory = sessionFactory;
+        this.repository = repository;
+        this.transactionSize = transactionSize;
+    }
+
+    //Queues an operation and commits the group once it is full; returns the number of operations committed
+    public int add(BatchCommand command) {
+        if (!command.isMutation()) {
+            throw new IllegalArgumentException(command.source() + ": " + command.name() + " does not change countries");
+        }
+        pending.add(command);
+        return pending.size() >= transactionSize ? flush() : 0;
+    }
+
+    //Commits every queued operation in one transaction and returns how many there were
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<BatchCommand> group = new ArrayList<>(pending);
+        pending.clear();
+        List<List<BatchCommand>> steps = steps(group);
+        Set<String> bulkChanged = new HashSet<>();
+        try {
+            sessionFactory.inTransaction(session -> {
+                for (List<BatchCommand> step : steps) {
+                    apply(session, step, bulkChanged);
+                }
+            });
+        } catch (IllegalArgumentException ex) {
+            // Already names its operation
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw naming(failedOperation(steps), ex);
+        }
+        // Bulk statements fire no entity events and skip the second-level cache. Only a range delete changes
+        // rows that are not known by code
+        if (steps.stream().anyMatch(step -> isRange(step.get(0)))) {
+            repository.bulkChanged();
+        } else if (!bulkChanged.isEmpty()) {
+            repository.rowsChanged(bulkChanged);
+        }
+        committed += group.size();
+        return group.size();
+    }
+
+    //Splits a group into the steps it is applied in, keeping its order: runs of bulk operations of the same
+    //kind, and every other operation on its own
+    private static List<List<BatchCommand>> steps(List<BatchCommand> group) {
+        List<List<BatchCommand>> steps = new ArrayList<>();
+        List<BatchCommand> run = null;
+        for (BatchCommand command : group) {
+            if (run != null && isBulk(command) && !isRange(command) && command.name().equals(run.get(0).name())) {
+                run.add(command);
+            } else {
+                run = new ArrayList<>(List.of(command));
+                steps.add(run);
+                if (!isBulk(command) || isRange(command)) {
+                    run = null;
+                }
+            }
+        }
+        return steps;
+    }
+
+    // Value only edits and deletes need no Country in the session
+    private static boolean isBulk(BatchCommand command) {
+        return command.name().equals("delete") || (command.name().equals("edit") && !command.hasOption("name"));
+    }
+
+    private static boolean isBulk(List<BatchCommand> step) {
+        return isBulk(step.get(0));
+    }
+
+    private static boolean isRange(BatchCommand command) {
+        return command.name().equals("delete") && !command.hasOption("code");
+    }
+
+    //Finds the operation of a group the database rejected when the group was flushed at commit, by replaying
+    //the group with a flush after every step in a transaction that is always rolled back. Falls back to
+    //the range of the group when every step goes through on its own
+    private String failedOperation(List<List<BatchCommand>> steps) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                for (List<BatchCommand> step : steps) {
+                    try {
+                        apply(session, step, new HashSet<>());
+                        session.flush();
+                    } catch (RuntimeException ex) {
+                        return sources(step);
+                    }
+                }
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        } catch (RuntimeException ex) {
+            // Cannot replay; the range is all there is to report
+        }
+        List<BatchCommand> group = new ArrayList<>();
+        steps.forEach(group::addAll);
+        return sources(group);
+    }
+
+    private static String sources(List<BatchCommand> commands) {
+        String first = commands.get(0).source();
+        String last = commands.get(commands.size() - 1).source();
+        return first.equals(last) ? first : first + " to " + last;
+    }
+
+    //The same failure with the operation in front of its message; conflicts keep their type
+    private static RuntimeException naming(String operation, RuntimeException ex) {
+        String message = operation + ": " + ex.getMessage();
+        if (ex instanceof ConstraintViolationException violation) {
+            return new ConstraintViolationException(message, violation.getSQLException(), violation.getSQL(),
+                    violation.getConstraintName());
+        }
+        if (ex instanceof EntityExistsException) {
+            return new EntityExistsException(message, ex);
+        }
+        return new IllegalStateException(message, ex);
+    }
+
+    //Operations committed so far
+    public long getCommittedCount() {
+        return committed;
+    }
+
+    // Adds the codes changed by bulk statements to bulkChanged
+    private void apply(Session session, List<BatchCommand> step, Set<String> bulkChanged) {
+        if (!isBulk(step)) {
+            apply(session, step.get(0));
+            return;
+        }
+        // Bulk statements neither see pending changes nor update the entities held by the session
+        session.flush();
+        if (isRange(step.get(0))) {
+            BatchCommand command = step.get(0);
+            repository.deleteInRange(session, command.column(),
+                    command.doubleOption("min"), command.doubleOption("max"));
+            session.clear();
+            return;
+        }
+        Set<String> codes = codes(step);
+        Set<String> stored = repository.findStoredCodes(session, codes);
+        if (step.get(0).name().equals("delete")) {
+            for (BatchCommand command : step) {
+                // Removed as it is found, so deleting a country twice fails like it does on its own
+                if (!stored.remove(command.code())) {
+                    throw notFound(command);
+                }
+            }
+            repository.deleteByCodes(session, codes);
+        } else {
+            Map<CountryColumn, Map<String, Double>> values = new EnumMap<>(CountryColumn.class);
+            for (BatchCommand command : step) {
+                if (!stored.contains(command.code())) {
+                    throw notFound(command);
+                }
+                putValue(values, CountryColumn.INTERNET_USERS, command, "internet");
+                putValue(values, CountryColumn.ADULT_LITERACY_RATE, command, "literacy");
+            }
+            values.forEach((column, valuesByCode) -> repository.updateValues(session, column, valuesByCode));
+        }
+        bulkChanged.addAll(codes);
+        session.clear();
+    }
+
+    private static Set<String> codes(List<BatchCommand> step) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (BatchCommand command : step) {
+            codes.add(command.code());
+        }
+        return codes;
+    }
+
+    // A later edit of the same code replaces the value, as it would one edit at a time
+    private static void putValue(Map<CountryColumn, Map<String, Double>> values, CountryColumn column,
+                                 BatchCommand command, String option) {
+        if (command.hasOption(option)) {
+            values.computeIfAbsent(column, key -> new LinkedHashMap<>())
+                    .put(command.code(), command.doubleOption(option));
+        }
+    }
+
+    private static void apply(Session session, BatchCommand command) {
+        switch (command.name()) {
+            case "add":
+                session.persist(new Country.CountryBuilder(command.code(), command.option("name"))
+                        .withInternetUsers(command.hasOption("internet") ? command.doubleOption("internet") : null)
+                        .withAdultLiteracyRate(command.hasOption("literacy") ? command.doubleOption("literacy") : null)
+                        .build());
+                break;
+            case "edit":
+                Country country = find(session, command);
+                if (command.hasOption("name")) {
+                    country.setName(command.option("name"));
+                }
+                if (command.hasOption("internet")) {
+                    country.setInternetUsers(command.doubleOption("internet"));
+                }
+                if (command.hasOption("literacy")) {
+                    country.setAdultLiteracyRate(command.doubleOption("literacy"));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(command.source() + ": " + command.name() + " does not change countries");
+        }
+    }
+
+    private static Country find(Session session, BatchCommand command) {
+        Country country = session.get(Country.class, command.code());
+        if (country == null) {
+            throw notFound(command);
+        }
+        return country;
+    }
+
+    private static IllegalArgumentException notFound(BatchCommand command) {
+        return new IllegalArgumentException(command.source() + ": no country found " + command.code());
+    }
+}
@@ -0,0 +1,113 @@
+package com.teamtreehouse.countrymgr.concurrent;
+
+import com.teamtreehouse.countrymgr.HibernateUtil;
+import com.teamtreehouse.countrymgr.metrics.LatencyHistogram;
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import org.hibernate.CacheMode;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Measures country lookups by code through a SessionTaskExecutor with more and more lookups in flight.
+//Needs countries in the database, e.g. from GenerateCountries.
+//Usage: LoadGenerator <lookups> [--concurrency 1,16,256,4096] [--bypass-cache]
+public class LoadGenerator {
+    private static final long SEED = 42L;
+    // Codes the lookups pick from
+    private static final int CODE_SAMPLE_SIZE = 10_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Usage: LoadGenerator <lookups> [--concurrency 1,16,256,4096] [--bypass-cache]");
+            return;
+        }
+        int lookups = Integer.parseInt(args[0]);
+        int[] levels = {1, 16, 256, 4096};
+        boolean bypassCache = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--concurrency":
+                    String[] values = args[++i].split(",");
+                    levels = new int[values.length];
+                    for (int j = 0; j < values.length; j++) {
+                        levels[j] = Integer.parseInt(values[j].trim());
+                    }
+                    break;
+                case "--bypass-cache":
+                    bypassCache = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        try (SessionFactory sessionFactory = HibernateUtil.buildSessionFactory();
+             SessionTaskExecutor executor = new SessionTaskExecutor(sessionFactory)) {
+            List<String> codes = new ArrayList<>();
+            for (CountryView country : new CountryRepository(sessionFactory).fetchPageAfter(null, CODE_SAMPLE_SIZE)) {
+                codes.add(country.code());
+            }
+            if (codes.isEmpty()) {
+                System.out.println("No countries to look up; run generateCountries first.");
+                return;
+            }
+            System.out.printf("%d lookups per level over %d codes, %d sessions at most%s %n",
+                    lookups, codes.size(), executor.getMaxSessions(), bypassCache ? ", bypassing the cache" : "");
+
+            // Warms up the JIT, the connection pool and the second-level cache
+            run(executor, codes, Math.min(lookups, 10_000), levels[levels.length - 1], bypassCache);
+            for (int level : levels) {
+                report(level, run(executor, codes, lookups, level, bypassCache));
+            }
+        }
+    }
+
+    private record Result(long lookups, long failures, long elapsedNanos, LatencyHistogram.Snapshot latencies) {
+    }
+
+    //Submits lookups keeping at most concurrency of them in flight, and waits for all of them
+    private static Result run(SessionTaskExecutor executor, List<String> codes, int lookups, int concurrency,
+                              boolean bypassCache) throws InterruptedException {
+        Random random = new Random(SEED);
+        Semaphore inFlight = new Semaphore(concurrency);
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            String code = codes.get(random.nextInt(codes.size()));
+            inFlight.acquire();
+            long submitted = System.nanoTime();
+            executor.submit(session -> {
+                if (bypassCache) {
+                    session.setCacheMode(CacheMode.IGNORE);
+                }
+                return session.get(Country.class, code);
+            }).whenComplete((country, failure) -> {
+                latencies.record(System.nanoTime() - submitted);
+                if (failure != null) {
+                    failures.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        return new Result(lookups, failures.get(), System.nanoTime() - start, latencies.snapshot());
+    }
+
+    private static void report(int concurrency, Result result) {
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf("in flight %5d: %10.0f lookups/s  p50 %8.3f ms  p99 %8.3f ms  failures %d %n",
+                concurrency,
+                result.lookups() / seconds,
+                result.latencies().quantileNanos(0.5) / 1e6,
+                result.latencies().quantileNanos(0.99) / 1e6,
+                result.failures());
+    }
+}
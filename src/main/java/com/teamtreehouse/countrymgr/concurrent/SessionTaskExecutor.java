@@ -0,0 +1,104 @@
+package com.teamtreehouse.countrymgr.concurrent;
+
+import com.teamtreehouse.countrymgr.metrics.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//Runs units of database work on virtual threads, each in a Session of its own that is closed when the task
+//ends. Virtual threads are cheap, so thousands of tasks can be in flight at once; a semaphore with one permit
+//per pooled connection parks the ones that cannot get a connection yet, instead of letting them pile up on
+//the pool and fail after its connectionTimeout. It also caps how many tasks can pin a carrier thread inside
+//synchronized JDBC code at the same time
+public class SessionTaskExecutor implements AutoCloseable {
+    // Used when the SessionFactory is not backed by HikariCP, matching HikariCP's own default
+    private static final int DEFAULT_MAX_SESSIONS = 10;
+
+    private final SessionFactory sessionFactory;
+    private final int maxSessions;
+    private final Semaphore sessions;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    //Allows as many open sessions as the connection pool has connections (hibernate.hikari.maximumPoolSize)
+    public SessionTaskExecutor(SessionFactory sessionFactory) {
+        this(sessionFactory, poolSize(sessionFactory));
+    }
+
+    public SessionTaskExecutor(SessionFactory sessionFactory, int maxSessions) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be positive: " + maxSessions);
+        }
+        this.sessionFactory = sessionFactory;
+        this.maxSessions = maxSessions;
+        this.sessions = new Semaphore(maxSessions, true);
+    }
+
+    private static int poolSize(SessionFactory sessionFactory) {
+        HikariDataSource dataSource = ConnectionPoolMetrics.dataSource(sessionFactory);
+        return dataSource == null ? DEFAULT_MAX_SESSIONS : dataSource.getMaximumPoolSize();
+    }
+
+    //Runs work on a virtual thread with a new Session, without a transaction
+    public <T> CompletableFuture<T> submit(Function<Session, T> work) {
+        return CompletableFuture.supplyAsync(() -> callWithSession(() -> sessionFactory.fromSession(work)), executor);
+    }
+
+    //Runs work on a virtual thread in a new Session and transaction, committed when it returns normally
+    public <T> CompletableFuture<T> submitInTransaction(Function<Session, T> work) {
+        return CompletableFuture.supplyAsync(() -> callWithSession(() -> sessionFactory.fromTransaction(work)), executor);
+    }
+
+    //Runs work on the calling thread once a session is free and returns its result, for work that opens its
+    //own Session such as repository calls, e.g. from a thread of getExecutor()
+    public <T> T callWithSession(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            sessions.release();
+        }
+    }
+
+    private void acquire() {
+        try {
+            sessions.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+    }
+
+    //The virtual thread per task executor the tasks run on, e.g. for a server's own tasks; closed by close()
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    //Tasks currently holding a session
+    public int getActiveSessions() {
+        return maxSessions - sessions.availablePermits();
+    }
+
+    //Tasks parked until a session is free
+    public int getWaitingTasks() {
+        return sessions.getQueueLength();
+    }
+
+    //Stops accepting tasks and waits for the submitted ones to finish
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.teamtreehouse.countrymgr.generator;
+
+import com.teamtreehouse.countrymgr.model.Country;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+//Produces a deterministic sequence of synthetic countries for scale testing.
+//The same seed and size always give the same rows. Codes are unique upper case strings of at least
+//3 letters, spread pseudo-randomly over the code space, and indicator values are missing about as often
+//as in the World Bank data (see data-table-sample.txt, where most literacy rates are "--")
+public class CountryGenerator implements Iterator<Country> {
+    public static final double INTERNET_USERS_NULL_RATIO = 0.02;
+    public static final double LITERACY_RATE_NULL_RATIO = 0.6;
+
+    // Largest code space whose products fit in a long
+    private static final long MAX_DIRECT_SPACE = 3_037_000_499L;
+
+    private static final String[] SYLLABLES = {
+            "an", "ba", "bu", "ca", "chi", "da", "do", "el", "ga", "gu", "ia", "ka", "la", "li", "ma", "mo",
+            "na", "ni", "or", "pa", "ra", "ri", "sa", "si", "ta", "to", "u", "va", "ze"
+    };
+    private static final String[] SUFFIXES = {"", "", "", "ia", "land", "stan", ", The", " Islands"};
+
+    private final long size;
+    private final Random random;
+    private final int codeLength;
+    private final long codeSpace;
+    private final long multiplier;
+    private final long offset;
+    private long index;
+
+    public CountryGenerator(long size, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative: " + size);
+        }
+        this.size = size;
+        this.random = new Random(seed);
+
+        int length = 3;
+        long space = 26L * 26 * 26;
+        while (space < size) {
+            length++;
+            space *= 26;
+        }
+        this.codeLength = length;
+        this.codeSpace = space;
+
+        // index -> (index * multiplier + offset) mod 26^length is a permutation when multiplier is coprime to 26
+        Random codeRandom = new Random(seed ^ 0x5DEECE66DL);
+        long candidate = Math.floorMod(codeRandom.nextLong(), space) | 1;
+        while (candidate % 13 == 0) {
+            candidate = (candidate + 2) % space;
+        }
+        this.multiplier = candidate;
+        this.offset = Math.floorMod(codeRandom.nextLong(), space);
+    }
+
+    //Code of the row at the given position, without generating the rows before it
+    public String code(long position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + " outside 0.." + (size - 1));
+        }
+        long value = (multiplyMod(position, multiplier) + offset) % codeSpace;
+        char[] code = new char[codeLength];
+        for (int i = codeLength - 1; i >= 0; i--) {
+            code[i] = (char) ('A' + value % 26);
+            value /= 26;
+        }
+        return new String(code);
+    }
+
+    //(a * b) mod codeSpace; both are below codeSpace, so the product only overflows above 26^6 codes
+    private long multiplyMod(long a, long b) {
+        if (codeSpace <= MAX_DIRECT_SPACE) {
+            return (a * b) % codeSpace;
+        }
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .mod(BigInteger.valueOf(codeSpace))
+                .longValue();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < size;
+    }
+
+    @Override
+    public Country next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String code = code(index++);
+        return new Country.CountryBuilder(code, name())
+                .withInternetUsers(random.nextDouble() < INTERNET_USERS_NULL_RATIO ? null : internetUsers())
+                .withAdultLiteracyRate(random.nextDouble() < LITERACY_RATE_NULL_RATIO ? null : literacyRate())
+                .build();
+    }
+
+    private String name() {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.append(SUFFIXES[random.nextInt(SUFFIXES.length)]).toString();
+    }
+
+    //Percentage of the population, spread over the whole range
+    private double internetUsers() {
+        return round(random.nextDouble() * 95.0);
+    }
+
+    //Percentage of adults, mostly close to 100 with a long tail
+    private double literacyRate() {
+        return round(Math.max(15.0, 100.0 - Math.abs(random.nextGaussian()) * 20.0));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.teamtreehouse.countrymgr.generator;
+
+import com.teamtreehouse.countrymgr.HibernateUtil;
+import com.teamtreehouse.countrymgr.importer.CountryImporter;
+import com.teamtreehouse.countrymgr.model.Country;
+import org.hibernate.SessionFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+//Writes synthetic countries to a CSV file or straight into the configured database.
+//Usage: GenerateCountries <rows> [--seed <seed>] [--file <path> | --db]
+public class GenerateCountries {
+    private static final long DEFAULT_SEED = 42L;
+    private static final int IMPORT_CHUNK_SIZE = 10_000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: GenerateCountries <rows> [--seed <seed>] [--file <path> | --db]");
+            return;
+        }
+        long rows = Long.parseLong(args[0]);
+        long seed = DEFAULT_SEED;
+        Path file = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--file":
+                    file = Paths.get(args[++i]);
+                    break;
+                case "--db":
+                    file = null;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        CountryGenerator countries = new CountryGenerator(rows, seed);
+        if (file != null) {
+            writeCsv(countries, file);
+            System.out.printf("%d countries written to %s", rows, file);
+        } else {
+            try (SessionFactory sessionFactory = HibernateUtil.buildSessionFactory()) {
+                new CountryImporter(sessionFactory, IMPORT_CHUNK_SIZE).importCountries(countries);
+            }
+            System.out.printf("%d countries inserted", rows);
+        }
+        System.out.printf(" in %d ms %n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //Writes the CSV layout read back by CountryFileParser
+    public static void writeCsv(Iterator<Country> countries, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("code,name,internetUsers,adultLiteracyRate");
+            writer.newLine();
+            while (countries.hasNext()) {
+                writeCsvRow(writer, countries.next());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, Country country) throws IOException {
+        writer.write(country.getCode());
+        writer.write(',');
+        writer.write(country.getName().replace(",", ""));
+        writer.write(',');
+        writer.write(country.getInternetUsers() == null ? "--" : country.getInternetUsers().toString());
+        writer.write(',');
+        writer.write(country.getAdultLiteracyRate() == null ? "--" : country.getAdultLiteracyRate().toString());
+    }
+}
@@ -0,0 +1,306 @@
+package com.teamtreehouse.countrymgr.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.teamtreehouse.countrymgr.batch.BatchCommand;
+import com.teamtreehouse.countrymgr.batch.BatchCommandParser;
+import com.teamtreehouse.countrymgr.batch.MutationBatch;
+import com.teamtreehouse.countrymgr.concurrent.SessionTaskExecutor;
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import com.teamtreehouse.countrymgr.service.CountryStatisticsService;
+import com.teamtreehouse.countrymgr.stats.CountryDistribution;
+import com.teamtreehouse.countrymgr.stats.StatisticsSummary;
+import jakarta.persistence.EntityExistsException;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+//JSON over HTTP at http://localhost:<port> on top of the application's SessionFactory. Every exchange runs on
+//its own virtual thread of a SessionTaskExecutor, so a request waiting on the database does not hold a platform
+//thread. Each database call takes one of the executor's sessions, at most one per pooled connection, and gives
+//it back before the response is written, so a slow client never holds a connection; exchanges that find no
+//session free park instead of timing out in the pool.
+//  GET  /countries[?after=<code>][&limit=<n>]  countries by code; without a limit the whole table is streamed,
+//                                              read countrymgr.http.pageSize countries at a time
+//  GET  /countries?codes=<code>,<code>,...      the given countries, in that order, skipping unknown codes
+//  GET  /countries/<code>                      one country, or 404
+//  GET  /statistics                            summary, percentiles and histogram of every column
+//  POST /batch                                 add, edit and delete operations in the batch script syntax,
+//                                              one per line, applied in a single transaction; script
+//                                              operations are rejected, the server's files are not read.
+//                                              413 above countrymgr.http.maxBatchOperations operations
+public class CountryHttpServer implements AutoCloseable {
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int RESPONSE_BUFFER_SIZE = 64 * 1024;
+    // Countries read per database call while streaming the whole table
+    private static final int STREAM_PAGE_SIZE = Integer.getInteger("countrymgr.http.pageSize", 1000);
+    // Most operations one POST /batch may carry, as they all go into one transaction
+    private static final int MAX_BATCH_OPERATIONS = Integer.getInteger("countrymgr.http.maxBatchOperations", 1000);
+
+    private final HttpServer server;
+    private final SessionTaskExecutor sessionTasks;
+    private final SessionFactory sessionFactory;
+    private final CountryRepository repository;
+    private final CountryStatisticsService statistics;
+    private final Runnable afterWrite;
+
+    //afterWrite runs after every committed batch, e.g. to drop in-memory copies of the table
+    public CountryHttpServer(SessionFactory sessionFactory, CountryRepository repository,
+                             CountryStatisticsService statistics, Runnable afterWrite, int port) throws IOException {
+        this.sessionFactory = sessionFactory;
+        this.repository = repository;
+        this.statistics = statistics;
+        this.afterWrite = afterWrite;
+        this.sessionTasks = new SessionTaskExecutor(sessionFactory);
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(sessionTasks.getExecutor());
+        server.createContext("/countries", exchange -> handle(exchange, "GET", this::countries));
+        server.createContext("/statistics", exchange -> handle(exchange, "GET", this::statistics));
+        server.createContext("/batch", exchange -> handle(exchange, "POST", this::batch));
+        server.start();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    //Checks the method, runs the handler and turns failures into JSON error responses:
+    //400 for invalid input, 409 for changes that clash with stored countries, 500 for anything else
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendError(exchange, 405, "Use " + method);
+                return;
+            }
+            try {
+                handler.handle(exchange);
+            } catch (IllegalArgumentException ex) {
+                sendFailure(exchange, 400, ex.getMessage());
+            } catch (EntityExistsException | ConstraintViolationException ex) {
+                sendFailure(exchange, 409, ex.getMessage());
+            } catch (RuntimeException ex) {
+                sendFailure(exchange, 500, ex.toString());
+            }
+        }
+    }
+
+    private void countries(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!path.equals("/countries") && !path.equals("/countries/")) {
+            country(exchange, path.substring("/countries/".length()));
+            return;
+        }
+        Map<String, String> query = query(exchange);
+        String codes = query.get("codes");
+        if (codes != null) {
+            countriesByCodes(exchange, codes);
+            return;
+        }
+        String limit = query.get("limit");
+        if (limit == null) {
+            streamCountries(exchange);
+            return;
+        }
+        int size = parsePositive(limit);
+        String after = query.get("after");
+        List<CountryView> page = withSession(() -> repository.fetchPageAfter(after, size));
+        if (page.size() == size) {
+            String last = page.get(page.size() - 1).code();
+            exchange.getResponseHeaders().set("Link", "</countries?after="
+                    + URLEncoder.encode(last, StandardCharsets.UTF_8) + "&limit=" + size + ">; rel=\"next\"");
+        }
+        try (Writer out = sendJson(exchange, 200)) {
+            out.write('[');
+            for (int i = 0; i < page.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                CountryJson.writeCountry(out, page.get(i));
+            }
+            out.write(']');
+        }
+    }
+
+    //Writes every country, reading the table a page at a time by code, so neither the table nor a connection
+    //is held while the client reads
+    private void streamCountries(HttpExchange exchange) throws IOException {
+        try (Writer out = sendJson(exchange, 200)) {
+            out.write('[');
+            String after = null;
+            boolean first = true;
+            while (true) {
+                String from = after;
+                List<CountryView> page = withSession(() -> repository.fetchPageAfter(from, STREAM_PAGE_SIZE));
+                for (CountryView country : page) {
+                    if (!first) {
+                        out.write(',');
+                    }
+                    first = false;
+                    CountryJson.writeCountry(out, country);
+                }
+                if (page.size() < STREAM_PAGE_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1).code();
+            }
+            out.write(']');
+        }
+    }
+
+    private void countriesByCodes(HttpExchange exchange, String codes) throws IOException {
+        List<String> wanted = new ArrayList<>();
+        for (String code : codes.split(",")) {
+            if (!code.isBlank()) {
+                wanted.add(code.trim().toUpperCase());
+            }
+        }
+        List<Country> countries = withSession(() -> repository.findAllByCodes(wanted));
+        try (Writer out = sendJson(exchange, 200)) {
+            out.write('[');
+            boolean first = true;
+            for (Country country : countries) {
+                if (country == null) {
+                    continue;
+                }
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                CountryJson.writeCountry(out, CountryView.of(country));
+            }
+            out.write(']');
+        }
+    }
+
+    private void country(HttpExchange exchange, String code) throws IOException {
+        String wanted = URLDecoder.decode(code, StandardCharsets.UTF_8).toUpperCase();
+        Country country = withSession(() -> repository.fetchByCode(wanted));
+        if (country == null) {
+            sendError(exchange, 404, "no country found " + code);
+            return;
+        }
+        try (Writer out = sendJson(exchange, 200)) {
+            CountryJson.writeCountry(out, CountryView.of(country));
+        }
+    }
+
+    private void statistics(HttpExchange exchange) throws IOException {
+        StatisticsSummary summary = withSession(statistics::summary);
+        CountryDistribution distribution = withSession(statistics::distribution);
+        try (Writer out = sendJson(exchange, 200)) {
+            CountryJson.writeStatistics(out, summary, distribution);
+        }
+    }
+
+    //Applies the posted operations all or nothing
+    private void batch(HttpExchange exchange) throws IOException {
+        List<BatchCommand> commands = BatchCommandParser.parseScript(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), "request line",
+                MAX_BATCH_OPERATIONS);
+        if (commands.isEmpty()) {
+            throw new IllegalArgumentException("no operations");
+        }
+        if (commands.size() > MAX_BATCH_OPERATIONS) {
+            sendError(exchange, 413, "at most " + MAX_BATCH_OPERATIONS + " operations per request");
+            return;
+        }
+        // One group as large as the request; add() rejects reads before anything is written
+        MutationBatch batch = new MutationBatch(sessionFactory, repository, commands.size());
+        try {
+            withSession(() -> {
+                for (BatchCommand command : commands) {
+                    batch.add(command);
+                }
+                return batch.flush();
+            });
+        } finally {
+            afterWrite.run();
+        }
+        try (Writer out = sendJson(exchange, 200)) {
+            out.write("{\"committed\":");
+            out.write(Long.toString(batch.getCommittedCount()));
+            out.write('}');
+        }
+    }
+
+    //Runs database work once one of the executor's sessions is free
+    private <T> T withSession(Supplier<T> work) {
+        return sessionTasks.callWithSession(work);
+    }
+
+    //Starts a chunked JSON response and returns a buffered writer for its body
+    private static Writer sendJson(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                RESPONSE_BUFFER_SIZE);
+    }
+
+    //Sends an error unless a response already started, in which case closing the exchange cuts it short
+    private static void sendFailure(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            sendError(exchange, status, message);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        try (Writer out = sendJson(exchange, status)) {
+            CountryJson.writeError(out, message);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static int parsePositive(String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("limit must be a positive number: '" + value + "'");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        sessionTasks.close();
+    }
+}
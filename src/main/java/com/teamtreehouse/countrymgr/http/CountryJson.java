@@ -0,0 +1,141 @@
+package com.teamtreehouse.countrymgr.http;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.stats.ColumnDistribution;
+import com.teamtreehouse.countrymgr.stats.ColumnSummary;
+import com.teamtreehouse.countrymgr.stats.CountryDistribution;
+import com.teamtreehouse.countrymgr.stats.Histogram;
+import com.teamtreehouse.countrymgr.stats.StatisticsSummary;
+
+import java.io.IOException;
+import java.io.Writer;
+
+//Writes countries and statistics as JSON straight to a Writer, without building the document in memory.
+//Missing, NaN and infinite numbers are written as null
+public final class CountryJson {
+
+    private CountryJson() {
+    }
+
+    //{"code":"ARG","name":"Argentina","internetUsers":69.4,"adultLiteracyRate":97.9}
+    public static void writeCountry(Writer out, CountryView country) throws IOException {
+        out.write("{\"code\":");
+        writeString(out, country.code());
+        out.write(",\"name\":");
+        writeString(out, country.name());
+        for (CountryColumn column : CountryColumn.values()) {
+            out.write(",\"");
+            out.write(column.getAttributeName());
+            out.write("\":");
+            writeNumber(out, column.valueOf(country));
+        }
+        out.write('}');
+    }
+
+    //Summary and distribution of every column, keyed by attribute name
+    public static void writeStatistics(Writer out, StatisticsSummary summary, CountryDistribution distribution)
+            throws IOException {
+        out.write("{\"rowCount\":");
+        out.write(Long.toString(summary.rowCount()));
+        out.write(",\"columns\":{");
+        String separator = "";
+        for (CountryColumn column : CountryColumn.values()) {
+            out.write(separator);
+            separator = ",";
+            writeString(out, column.getAttributeName());
+            out.write(':');
+            writeColumn(out, summary.get(column), distribution.get(column));
+        }
+        out.write("}}");
+    }
+
+    private static void writeColumn(Writer out, ColumnSummary summary, ColumnDistribution distribution)
+            throws IOException {
+        out.write("{\"count\":");
+        out.write(Long.toString(summary.count()));
+        out.write(",\"nullCount\":");
+        out.write(Long.toString(summary.nullCount()));
+        out.write(",\"min\":");
+        writeNumber(out, summary.min());
+        out.write(",\"minName\":");
+        writeString(out, summary.minName());
+        out.write(",\"max\":");
+        writeNumber(out, summary.max());
+        out.write(",\"maxName\":");
+        writeString(out, summary.maxName());
+        out.write(",\"average\":");
+        writeNumber(out, summary.isEmpty() ? Double.NaN : summary.average());
+        out.write(",\"median\":");
+        writeNumber(out, distribution.getMedian());
+        out.write(",\"p90\":");
+        writeNumber(out, distribution.quantile(0.9));
+        out.write(",\"p99\":");
+        writeNumber(out, distribution.quantile(0.99));
+        out.write(",\"histogram\":[");
+        Histogram histogram = distribution.getHistogram();
+        for (int bucket = 0; bucket < histogram.getBucketCount(); bucket++) {
+            if (bucket > 0) {
+                out.write(',');
+            }
+            out.write("{\"from\":");
+            writeNumber(out, histogram.getBucketLowerBound(bucket));
+            out.write(",\"to\":");
+            writeNumber(out, histogram.getBucketUpperBound(bucket));
+            out.write(",\"count\":");
+            out.write(Long.toString(histogram.getCount(bucket)));
+            out.write('}');
+        }
+        out.write("]}");
+    }
+
+    //{"error":"..."}
+    public static void writeError(Writer out, String message) throws IOException {
+        out.write("{\"error\":");
+        writeString(out, message);
+        out.write('}');
+    }
+
+    public static void writeNumber(Writer out, Double value) throws IOException {
+        if (value == null || value.isNaN() || value.isInfinite()) {
+            out.write("null");
+        } else {
+            out.write(value.toString());
+        }
+    }
+
+    public static void writeString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
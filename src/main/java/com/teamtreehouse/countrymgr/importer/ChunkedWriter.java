@@ -0,0 +1,46 @@
+package com.teamtreehouse.countrymgr.importer;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+//Writes rows through a StatelessSession for the importers. Statements are sent in JDBC batches of
+//hibernate.jdbc.batch_size and the transaction is committed every chunkSize rows
+final class ChunkedWriter {
+
+    private ChunkedWriter() {
+    }
+
+    static int requireChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        return chunkSize;
+    }
+
+    //Writes every row and returns how many were written. Chunks committed before a failure stay committed
+    static <T> long write(StatelessSession session, Iterator<? extends T> rows, int chunkSize,
+                          BiConsumer<StatelessSession, T> operation) {
+        long written = 0;
+        Transaction transaction = session.beginTransaction();
+        try {
+            while (rows.hasNext()) {
+                operation.accept(session, rows.next());
+                written++;
+                if (written % chunkSize == 0) {
+                    transaction.commit();
+                    transaction = session.beginTransaction();
+                }
+            }
+            transaction.commit();
+        } catch (RuntimeException ex) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw ex;
+        }
+        return written;
+    }
+}
@@ -0,0 +1,131 @@
+package com.teamtreehouse.countrymgr.importer;
+
+import com.teamtreehouse.countrymgr.model.Country;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+//Lazily parses country rows from a reader, one line at a time.
+//Two layouts are understood:
+// - CSV: code,name,internetUsers,adultLiteracyRate (an optional header line starting with "code" is skipped)
+// - the fixed-width World Bank table of data-table-sample.txt: name, internet users and literacy separated
+//   by two or more spaces. That layout has no code column, so each name must match a stored country, whose
+//   code is looked up; rows naming no stored country are rejected rather than given a made-up code.
+//Empty values and "--" are read as null.
+public class CountryFileParser implements Iterator<Country> {
+    private static final Pattern COLUMN_GAP = Pattern.compile("\\s{2,}");
+    private static final String NO_VALUE = "--";
+
+    private final BufferedReader reader;
+    // Code of the stored country with a given name, or null
+    private final Function<String, String> codeByName;
+    private Country next;
+    private int lineNumber;
+
+    //Reads CSV rows only; fixed-width rows are rejected as there is nothing to look their codes up in
+    public CountryFileParser(BufferedReader reader) {
+        this(reader, name -> null);
+    }
+
+    public CountryFileParser(BufferedReader reader, Function<String, String> codeByName) {
+        this.reader = reader;
+        this.codeByName = codeByName;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Country next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Country country = next;
+        next = null;
+        return country;
+    }
+
+    private Country readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (isIgnored(trimmed)) {
+                    continue;
+                }
+                return isCsv(trimmed) ? parseCsv(trimmed) : parseFixedWidth(trimmed);
+            }
+            return null;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    //Blank lines, separator lines and header lines carry no data
+    private boolean isIgnored(String line) {
+        return line.isEmpty()
+                || line.chars().allMatch(c -> c == '-')
+                || line.regionMatches(true, 0, "code,", 0, 5)
+                || line.regionMatches(true, 0, "Country ", 0, 8);
+    }
+
+    //"Bahamas, The  72.00  --" contains a comma but is a fixed-width row: CSV rows have exactly four fields
+    private boolean isCsv(String line) {
+        return line.split(",", -1).length == 4 && !COLUMN_GAP.matcher(line).find();
+    }
+
+    private Country parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        String code = fields[0].trim().toUpperCase();
+        if (code.isEmpty()) {
+            throw invalid("missing country code");
+        }
+        return new Country.CountryBuilder(code, fields[1].trim())
+                .withInternetUsers(parseValue(fields[2]))
+                .withAdultLiteracyRate(parseValue(fields[3]))
+                .build();
+    }
+
+    private Country parseFixedWidth(String line) {
+        String[] fields = COLUMN_GAP.split(line);
+        if (fields.length != 3) {
+            throw invalid("expected name, internet users and literacy rate");
+        }
+        String name = fields[0];
+        String code = codeByName.apply(name);
+        if (code == null) {
+            throw invalid("no stored country named '" + name + "'; add new countries with a CSV row and a code");
+        }
+        return new Country.CountryBuilder(code, name)
+                .withInternetUsers(parseValue(fields[1]))
+                .withAdultLiteracyRate(parseValue(fields[2]))
+                .build();
+    }
+
+    private Double parseValue(String field) {
+        String value = field.trim();
+        if (value.isEmpty() || value.equals(NO_VALUE)) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException nfe) {
+            throw invalid("not a number: '" + value + "'");
+        }
+    }
+
+    private IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,74 @@
+package com.teamtreehouse.countrymgr.importer;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+//Inserts large amounts of countries through a StatelessSession, committing every chunkSize rows
+public class CountryImporter {
+    private final SessionFactory sessionFactory;
+    private final int chunkSize;
+
+    public CountryImporter(SessionFactory sessionFactory, int chunkSize) {
+        this.sessionFactory = sessionFactory;
+        this.chunkSize = ChunkedWriter.requireChunkSize(chunkSize);
+    }
+
+    //Imports a CSV or fixed-width file, see CountryFileParser for the layouts, and returns the number of rows
+    //written. Rows for a stored code replace it, so a file can correct countries already in the database;
+    //fixed-width rows find their codes by country name. The stored codes and names are read with one query
+    //first, so new rows go out as batched inserts and only stored codes are updated
+    public long importFile(Path file) throws IOException {
+        Set<String> storedCodes = new HashSet<>();
+        Map<String, String> codesByName = new HashMap<>();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            readCodes(session, storedCodes, codesByName);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            CountryFileParser countries = new CountryFileParser(reader, codesByName::get);
+            return ChunkedWriter.write(session, countries, chunkSize, (writer, country) -> {
+                // A code repeated later in the file updates the row inserted for it
+                if (storedCodes.add(country.getCode())) {
+                    writer.insert(country);
+                } else {
+                    writer.update(country);
+                }
+            });
+        }
+    }
+
+    // Every stored code, and the lowest code with each name
+    private static void readCodes(StatelessSession session, Set<String> codes, Map<String, String> codesByName) {
+        try (ScrollableResults<Object[]> rows = session.createQuery(
+                        "select c.code, c.name from Country c order by c.code", Object[].class)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Object[] row = rows.get();
+                codes.add((String) row[0]);
+                codesByName.putIfAbsent((String) row[1], (String) row[0]);
+            }
+        }
+    }
+
+    //Inserts every country and returns how many were inserted. Chunks committed before a failure stay committed
+    public long importCountries(Iterator<Country> countries) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return ChunkedWriter.write(session, countries, chunkSize, StatelessSession::insert);
+        }
+    }
+}
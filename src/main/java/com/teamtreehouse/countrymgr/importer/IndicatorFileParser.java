@@ -0,0 +1,104 @@
+package com.teamtreehouse.countrymgr.importer;
+
+import com.teamtreehouse.countrymgr.model.IndicatorValue;
+import com.teamtreehouse.countrymgr.model.IndicatorValueId;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+//Lazily parses yearly indicator values from a reader, one CSV line at a time:
+//  countryCode,indicatorId,year,value
+//e.g. "ARG,IT.NET.USER.ZS,2015,68.04". An optional header line starting with "country" is skipped, blank
+//lines are ignored and an empty value or "--" is read as null. Every country code must be a stored country.
+public class IndicatorFileParser implements Iterator<IndicatorValue> {
+    private static final String NO_VALUE = "--";
+
+    private final BufferedReader reader;
+    private final Predicate<String> countryExists;
+    private IndicatorValue next;
+    private int lineNumber;
+
+    public IndicatorFileParser(BufferedReader reader, Predicate<String> countryExists) {
+        this.reader = reader;
+        this.countryExists = countryExists;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public IndicatorValue next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        IndicatorValue value = next;
+        next = null;
+        return value;
+    }
+
+    private IndicatorValue readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.regionMatches(true, 0, "country", 0, 7)) {
+                    continue;
+                }
+                return parse(trimmed);
+            }
+            return null;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    private IndicatorValue parse(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 4) {
+            throw invalid("expected country code, indicator, year and value");
+        }
+        String code = fields[0].trim().toUpperCase();
+        if (!countryExists.test(code)) {
+            throw invalid("no stored country with code '" + code + "'");
+        }
+        String indicatorId = fields[1].trim();
+        if (indicatorId.isEmpty()) {
+            throw invalid("missing indicator");
+        }
+        return new IndicatorValue(new IndicatorValueId(code, indicatorId, parseYear(fields[2])), parseValue(fields[3]));
+    }
+
+    private int parseYear(String field) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException nfe) {
+            throw invalid("not a year: '" + field.trim() + "'");
+        }
+    }
+
+    private Double parseValue(String field) {
+        String value = field.trim();
+        if (value.isEmpty() || value.equals(NO_VALUE)) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException nfe) {
+            throw invalid("not a number: '" + value + "'");
+        }
+    }
+
+    private IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.teamtreehouse.countrymgr.importer;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.Indicator;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+//Loads yearly indicator values through a StatelessSession, committing every chunkSize rows. Indicators not
+//stored yet are added with their id as name
+public class IndicatorImporter {
+    private final SessionFactory sessionFactory;
+    private final int chunkSize;
+
+    public IndicatorImporter(SessionFactory sessionFactory, int chunkSize) {
+        this.sessionFactory = sessionFactory;
+        this.chunkSize = ChunkedWriter.requireChunkSize(chunkSize);
+    }
+
+    //Imports a file in the layout of IndicatorFileParser and returns the number of values written. A value for
+    //a stored country, indicator and year replaces it
+    public long importFile(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            // One primary key lookup per distinct country and indicator, not per row
+            Map<String, Boolean> countries = new HashMap<>();
+            IndicatorFileParser values = new IndicatorFileParser(reader,
+                    code -> countries.computeIfAbsent(code, c -> session.get(Country.class, c) != null));
+            Set<String> indicators = new HashSet<>();
+            return ChunkedWriter.write(session, values, chunkSize, (s, value) -> {
+                String indicatorId = value.getId().getIndicatorId();
+                if (indicators.add(indicatorId) && s.get(Indicator.class, indicatorId) == null) {
+                    s.insert(new Indicator(indicatorId, indicatorId));
+                }
+                s.upsert(value);
+            });
+        }
+    }
+}
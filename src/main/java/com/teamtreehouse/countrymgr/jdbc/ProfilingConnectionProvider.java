@@ -0,0 +1,104 @@
+package com.teamtreehouse.countrymgr.jdbc;
+
+import com.teamtreehouse.countrymgr.metrics.LatencyHistogram;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.hikaricp.internal.HikariCPConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+//HikariCP connection provider that records every statement in a QueryLog, replacing show_sql.
+//Settings, read from hibernate.cfg.xml:
+// - hibernate.countrymgr.slow_query.threshold_ms: statements at least this slow are logged (default 200)
+// - hibernate.countrymgr.slow_query.buffer_size: number of recent statements kept in memory (default 1024)
+public class ProfilingConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+    public static final String THRESHOLD_MS = "hibernate.countrymgr.slow_query.threshold_ms";
+    public static final String BUFFER_SIZE = "hibernate.countrymgr.slow_query.buffer_size";
+
+    private final HikariCPConnectionProvider delegate = new HikariCPConnectionProvider();
+    private final LatencyHistogram acquireTimes = new LatencyHistogram();
+    private QueryLog queryLog;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        delegate.configure(settings);
+        queryLog = new QueryLog(
+                intSetting(settings, BUFFER_SIZE, 1024),
+                intSetting(settings, THRESHOLD_MS, 200)
+        );
+    }
+
+    private static int intSetting(Map<String, Object> settings, String name, int defaultValue) {
+        Object value = settings.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.toString().trim());
+    }
+
+    public QueryLog getQueryLog() {
+        return queryLog;
+    }
+
+    //Time spent waiting for a connection from the pool
+    public LatencyHistogram getAcquireTimes() {
+        return acquireTimes;
+    }
+
+    //The provider of a SessionFactory, or null when it uses another one
+    public static ProfilingConnectionProvider of(SessionFactory sessionFactory) {
+        ConnectionProvider connectionProvider = sessionFactory.getSessionFactoryOptions()
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (connectionProvider == null || !connectionProvider.isUnwrappableAs(ProfilingConnectionProvider.class)) {
+            return null;
+        }
+        return connectionProvider.unwrap(ProfilingConnectionProvider.class);
+    }
+
+    //The query log of a SessionFactory, or null when it does not use this provider
+    public static QueryLog queryLog(SessionFactory sessionFactory) {
+        ProfilingConnectionProvider provider = of(sessionFactory);
+        return provider == null ? null : provider.getQueryLog();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection();
+        acquireTimes.record(System.nanoTime() - start);
+        return ProfilingJdbc.wrap(connection, queryLog);
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        delegate.closeConnection(connection);
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return delegate.supportsAggressiveRelease();
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || delegate.isUnwrappableAs(unwrapType);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return unwrapType.cast(this);
+        }
+        return delegate.unwrap(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+        if (queryLog != null) {
+            queryLog.stop();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.teamtreehouse.countrymgr.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+//Dynamic proxies around JDBC connections and statements that time every statement and report it to a QueryLog.
+//A query is recorded when its ResultSet is closed, so its time includes the time spent in next() fetching its rows.
+//ResultSets are wrapped by the delegating ProfilingResultSet instead of a proxy, as they see a call per column
+final class ProfilingJdbc {
+
+    private ProfilingJdbc() {
+    }
+
+    static Connection wrap(Connection connection, QueryLog queryLog) {
+        return proxy(Connection.class, new ConnectionHandler(connection, queryLog));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(ProfilingJdbc.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private abstract static class Handler implements InvocationHandler {
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Identity semantics, so Hibernate can track the proxies in its resource registry
+            if (method.getName().equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            return handle(method, args);
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private static final class ConnectionHandler extends Handler {
+        private final QueryLog queryLog;
+
+        ConnectionHandler(Connection connection, QueryLog queryLog) {
+            super(connection);
+            this.queryLog = queryLog;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                case "createStatement":
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return wrapStatement((Statement) result, sql);
+                default:
+                    return result;
+            }
+        }
+
+        private Statement wrapStatement(Statement statement, String sql) {
+            StatementHandler handler = new StatementHandler(statement, sql, queryLog);
+            if (statement instanceof CallableStatement) {
+                return proxy(CallableStatement.class, handler);
+            }
+            if (statement instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, handler);
+            }
+            return proxy(Statement.class, handler);
+        }
+    }
+
+    private static final class StatementHandler extends Handler {
+        private final String preparedSql;
+        private final QueryLog queryLog;
+        private int bindCount;
+        private ProfilingResultSet openResultSet;
+        // Execution time of execute(), pending until its ResultSet is requested
+        private String pendingSql;
+        private int pendingBinds;
+        private long pendingNanos = -1;
+
+        StatementHandler(Statement statement, String sql, QueryLog queryLog) {
+            super(statement);
+            this.preparedSql = sql;
+            this.queryLog = queryLog;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2) {
+                bindCount++;
+            } else if (name.equals("getResultSet") && pendingNanos >= 0) {
+                ResultSet resultSet = (ResultSet) delegate(method, args);
+                long elapsed = pendingNanos;
+                pendingNanos = -1;
+                return resultSet == null ? null : wrapResultSet(resultSet, pendingSql, pendingBinds, elapsed);
+            } else if (name.equals("close")) {
+                closeResultSet();
+            }
+            return delegate(method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            closeResultSet();
+            long start = System.nanoTime();
+            Object result = delegate(method, args);
+            long elapsed = System.nanoTime() - start;
+            int binds = bindCount;
+            bindCount = 0;
+
+            if (result instanceof ResultSet) {
+                return wrapResultSet((ResultSet) result, sql, binds, elapsed);
+            }
+            if (result instanceof Boolean) {
+                if ((Boolean) result) {
+                    pendingSql = sql;
+                    pendingBinds = binds;
+                    pendingNanos = elapsed;
+                } else {
+                    record(sql, binds, elapsed, ((Statement) target).getLargeUpdateCount());
+                }
+            } else if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                record(sql, binds, elapsed, rows);
+            } else if (result instanceof long[]) {
+                long rows = 0;
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                record(sql, binds, elapsed, rows);
+            } else if (result instanceof Number) {
+                record(sql, binds, elapsed, ((Number) result).longValue());
+            }
+            return result;
+        }
+
+        private ResultSet wrapResultSet(ResultSet resultSet, String sql, int binds, long elapsed) {
+            openResultSet = new ProfilingResultSet(resultSet, elapsed, (finished, elapsedNanos, rows) -> {
+                record(sql, binds, elapsedNanos, rows);
+                if (openResultSet == finished) {
+                    openResultSet = null;
+                }
+            });
+            return openResultSet;
+        }
+
+        private void closeResultSet() {
+            if (openResultSet != null) {
+                openResultSet.finish();
+            }
+        }
+
+        private void record(String sql, int binds, long elapsedNanos, long rows) {
+            queryLog.record(new StatementRecord(System.currentTimeMillis(), sql, binds, elapsedNanos, rows));
+        }
+    }
+}
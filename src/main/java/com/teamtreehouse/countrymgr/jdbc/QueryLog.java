@@ -0,0 +1,100 @@
+package com.teamtreehouse.countrymgr.jdbc;
+
+import com.teamtreehouse.countrymgr.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//Keeps the most recent statements in a fixed size ring buffer and logs the ones slower than a threshold.
+//Recording never blocks or does I/O on the calling thread: slow statements are handed to a background
+//writer through a bounded queue, and are dropped (and counted) if the writer falls behind
+public class QueryLog {
+    private static final Logger logger = Logger.getLogger("com.teamtreehouse.countrymgr.slowquery");
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final AtomicReferenceArray<StatementRecord> buffer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final long thresholdNanos;
+    private final BlockingQueue<StatementRecord> slowStatements = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public QueryLog(int capacity, long thresholdMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.writer = new Thread(this::writeSlowStatements, "slow-query-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void record(StatementRecord statement) {
+        long position = written.getAndIncrement();
+        buffer.set((int) (position % buffer.length()), statement);
+        latencies.record(statement.elapsedNanos());
+        if (statement.elapsedNanos() >= thresholdNanos && !slowStatements.offer(statement)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    //The buffered statements, oldest first
+    public List<StatementRecord> recent() {
+        long end = written.get();
+        long start = Math.max(0, end - buffer.length());
+        List<StatementRecord> statements = new ArrayList<>((int) (end - start));
+        for (long position = start; position < end; position++) {
+            StatementRecord statement = buffer.get((int) (position % buffer.length()));
+            if (statement != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    //Execution times of every statement recorded since startup
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    //Statements recorded since startup
+    public long getRecordedCount() {
+        return written.get();
+    }
+
+    //Slow statements that could not be logged because the writer was behind
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public void stop() {
+        running = false;
+        writer.interrupt();
+    }
+
+    private void writeSlowStatements() {
+        while (running) {
+            try {
+                StatementRecord statement = slowStatements.take();
+                logger.log(Level.WARNING, "Slow statement: {0}", statement);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.teamtreehouse.countrymgr.jdbc;
+
+//One executed JDBC statement. rows is the number of rows read for queries or the update count otherwise
+public record StatementRecord(long timestampMillis, String sql, int bindCount, long elapsedNanos, long rows) {
+
+    public double elapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f ms, %d rows, %d binds: %s", elapsedMillis(), rows, bindCount, sql);
+    }
+}
@@ -0,0 +1,50 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+
+//Point in time usage of the HikariCP connection pool behind a SessionFactory
+public record ConnectionPoolMetrics(String poolName,
+                                    int activeConnections,
+                                    int idleConnections,
+                                    int totalConnections,
+                                    int threadsAwaitingConnection,
+                                    int minimumIdle,
+                                    int maximumPoolSize) {
+
+    //Reads the current pool usage, or returns null when the SessionFactory is not backed by HikariCP
+    public static ConnectionPoolMetrics read(SessionFactory sessionFactory) {
+        HikariDataSource dataSource = dataSource(sessionFactory);
+        if (dataSource == null) {
+            return null;
+        }
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            // The pool starts lazily with the first connection
+            return new ConnectionPoolMetrics(dataSource.getPoolName(), 0, 0, 0, 0,
+                    dataSource.getMinimumIdle(), dataSource.getMaximumPoolSize());
+        }
+        return new ConnectionPoolMetrics(
+                dataSource.getPoolName(),
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                dataSource.getMinimumIdle(),
+                dataSource.getMaximumPoolSize()
+        );
+    }
+
+    //The HikariCP data source used by Hibernate, or null when another ConnectionProvider is configured
+    public static HikariDataSource dataSource(SessionFactory sessionFactory) {
+        ConnectionProvider connectionProvider = sessionFactory.getSessionFactoryOptions()
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (connectionProvider == null || !connectionProvider.isUnwrappableAs(HikariDataSource.class)) {
+            return null;
+        }
+        return connectionProvider.unwrap(HikariDataSource.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+import com.teamtreehouse.countrymgr.jdbc.ProfilingConnectionProvider;
+import com.teamtreehouse.countrymgr.jdbc.QueryLog;
+import com.teamtreehouse.countrymgr.model.Country;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.ToLongFunction;
+
+//Registers the Hibernate statistics, JDBC timings and connection pool usage of a SessionFactory as metrics
+public final class HibernateMetrics {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private HibernateMetrics() {
+    }
+
+    public static void bind(SessionFactory sessionFactory, MetricsRegistry registry) {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        registry.counter("countrymgr_sessions_opened_total", "Hibernate sessions opened",
+                statistics::getSessionOpenCount);
+        registry.counter("countrymgr_sessions_closed_total", "Hibernate sessions closed",
+                statistics::getSessionCloseCount);
+        registry.counter("countrymgr_transactions_total", "Transactions completed",
+                statistics::getTransactionCount);
+        registry.counter("countrymgr_jdbc_connections_obtained_total", "JDBC connections obtained by Hibernate",
+                statistics::getConnectCount);
+        registry.counter("countrymgr_jdbc_statements_prepared_total", "JDBC statements prepared",
+                statistics::getPrepareStatementCount);
+        registry.counter("countrymgr_queries_executed_total", "HQL and Criteria queries executed",
+                statistics::getQueryExecutionCount);
+
+        bindCountry(registry, statistics, "loads", "loaded", EntityStatistics::getLoadCount);
+        bindCountry(registry, statistics, "fetches", "fetched by association or lazy loading", EntityStatistics::getFetchCount);
+        bindCountry(registry, statistics, "inserts", "inserted", EntityStatistics::getInsertCount);
+        bindCountry(registry, statistics, "updates", "updated", EntityStatistics::getUpdateCount);
+        bindCountry(registry, statistics, "deletes", "deleted", EntityStatistics::getDeleteCount);
+
+        registry.counter("countrymgr_second_level_cache_hits_total", "Second-level cache hits",
+                statistics::getSecondLevelCacheHitCount);
+        registry.counter("countrymgr_second_level_cache_misses_total", "Second-level cache misses",
+                statistics::getSecondLevelCacheMissCount);
+        registry.counter("countrymgr_query_cache_hits_total", "Query cache hits",
+                statistics::getQueryCacheHitCount);
+        registry.counter("countrymgr_query_cache_misses_total", "Query cache misses",
+                statistics::getQueryCacheMissCount);
+
+        bindConnectionProvider(sessionFactory, registry);
+        bindConnectionPool(sessionFactory, registry);
+    }
+
+    private static void bindCountry(MetricsRegistry registry, Statistics statistics, String name, String description,
+                                    ToLongFunction<EntityStatistics> value) {
+        registry.counter("countrymgr_country_" + name + "_total", "Country entities " + description,
+                () -> value.applyAsLong(statistics.getEntityStatistics(Country.class.getName())));
+    }
+
+    private static void bindConnectionProvider(SessionFactory sessionFactory, MetricsRegistry registry) {
+        ProfilingConnectionProvider provider = ProfilingConnectionProvider.of(sessionFactory);
+        if (provider == null) {
+            return;
+        }
+        LatencyHistogram acquireTimes = provider.getAcquireTimes();
+        registry.histogram("countrymgr_jdbc_connection_acquire_seconds", "Time waiting for a pooled connection",
+                acquireTimes);
+
+        QueryLog queryLog = provider.getQueryLog();
+        LatencyHistogram latencies = queryLog.getLatencies();
+        registry.histogram("countrymgr_jdbc_statement_seconds", "JDBC statement execution time, including row fetching",
+                latencies);
+        registry.gauge("countrymgr_jdbc_statement_p50_seconds", "Median JDBC statement execution time",
+                () -> latencies.snapshot().quantileNanos(0.5) / NANOS_PER_SECOND);
+        registry.gauge("countrymgr_jdbc_statement_p99_seconds", "99th percentile of JDBC statement execution time",
+                () -> latencies.snapshot().quantileNanos(0.99) / NANOS_PER_SECOND);
+        registry.counter("countrymgr_slow_statements_dropped_total", "Slow statements not logged because the log was behind",
+                queryLog::getDroppedCount);
+    }
+
+    private static void bindConnectionPool(SessionFactory sessionFactory, MetricsRegistry registry) {
+        if (ConnectionPoolMetrics.read(sessionFactory) == null) {
+            return;
+        }
+        registry.gauge("countrymgr_pool_active_connections", "Connections in use",
+                () -> ConnectionPoolMetrics.read(sessionFactory).activeConnections());
+        registry.gauge("countrymgr_pool_idle_connections", "Idle connections",
+                () -> ConnectionPoolMetrics.read(sessionFactory).idleConnections());
+        registry.gauge("countrymgr_pool_pending_threads", "Threads waiting for a connection",
+                () -> ConnectionPoolMetrics.read(sessionFactory).threadsAwaitingConnection());
+    }
+}
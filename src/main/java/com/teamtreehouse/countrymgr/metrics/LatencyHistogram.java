@@ -0,0 +1,91 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Lock-free histogram of durations with exponential buckets: 1 us, 2 us, 4 us, ... up to about 18 minutes.
+//Quantiles are approximated by the upper bound of the bucket they fall in, so they are within a factor of 2
+public class LatencyHistogram {
+    private static final int BUCKETS = 31;
+    private static final long FIRST_BOUND_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    // The last bucket also holds every duration beyond its bound
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+        sumNanos.add(Math.max(nanos, 0));
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos <= FIRST_BOUND_NANOS) {
+            return 0;
+        }
+        // Smallest i with FIRST_BOUND_NANOS << i >= nanos
+        int bucket = 64 - Long.numberOfLeadingZeros((nanos - 1) / FIRST_BOUND_NANOS);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    //Inclusive upper bound of a bucket in nanoseconds
+    public static long upperBoundNanos(int bucket) {
+        return FIRST_BOUND_NANOS << bucket;
+    }
+
+    public static int bucketCount() {
+        return BUCKETS;
+    }
+
+    public Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        return new Snapshot(snapshot, count, sumNanos.sum());
+    }
+
+    //Consistent enough copy of the histogram for reporting
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumNanos;
+
+        private Snapshot(long[] counts, long count, long sumNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.sumNanos = sumNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSumNanos() {
+            return sumNanos;
+        }
+
+        //Number of durations in one bucket
+        public long getBucketCount(int bucket) {
+            return counts[bucket];
+        }
+
+        //Upper bound, in nanoseconds, of the bucket holding the q-quantile; 0 when nothing was recorded
+        public long quantileNanos(double q) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundNanos(i);
+                }
+            }
+            return upperBoundNanos(counts.length - 1);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+//Receives the current value of every metric of a MetricsRegistry, e.g. to write them in an export format
+public interface MetricsCollector {
+
+    //A monotonically increasing count
+    void counter(String name, String help, long value);
+
+    //A value that can go up and down
+    void gauge(String name, String help, double value);
+
+    void histogram(String name, String help, LatencyHistogram.Snapshot histogram);
+}
@@ -0,0 +1,18 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+//Named metrics whose values are read when they are collected. Implement this to bridge to another
+//metrics library; SimpleMetricsRegistry is the default in-process implementation
+public interface MetricsRegistry {
+
+    void counter(String name, String help, LongSupplier value);
+
+    void gauge(String name, String help, DoubleSupplier value);
+
+    void histogram(String name, String help, LatencyHistogram histogram);
+
+    //Reads every registered metric, in registration order
+    void collect(MetricsCollector collector);
+}
@@ -0,0 +1,48 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Samples a registry periodically and replaces a file with the metrics in Prometheus text format,
+//e.g. for the node exporter textfile collector. The file is swapped atomically so readers never see half of it
+public class PrometheusFileExporter implements AutoCloseable {
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-file-exporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PrometheusFileExporter(MetricsRegistry registry, Path file, long intervalSeconds) {
+        this.registry = registry;
+        this.file = file.toAbsolutePath();
+        scheduler.scheduleAtFixedRate(this::writeQuietly, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void write() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, PrometheusTextFormat.format(registry), StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException ex) {
+            // Throwing would cancel the schedule; the next sample tries again
+            System.err.printf("Could not write metrics to %s: %s%n", file, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+}
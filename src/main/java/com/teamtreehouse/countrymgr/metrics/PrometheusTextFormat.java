@@ -0,0 +1,51 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+//Writes metrics in the Prometheus text exposition format. Durations are exported in seconds
+public class PrometheusTextFormat implements MetricsCollector {
+    private final StringBuilder text = new StringBuilder();
+
+    //Renders every metric of a registry
+    public static String format(MetricsRegistry registry) {
+        PrometheusTextFormat format = new PrometheusTextFormat();
+        registry.collect(format);
+        return format.text.toString();
+    }
+
+    @Override
+    public void counter(String name, String help, long value) {
+        header(name, help, "counter");
+        sample(name, "", Long.toString(value));
+    }
+
+    @Override
+    public void gauge(String name, String help, double value) {
+        header(name, help, "gauge");
+        sample(name, "", Double.toString(value));
+    }
+
+    @Override
+    public void histogram(String name, String help, LatencyHistogram.Snapshot histogram) {
+        header(name, help, "histogram");
+        long cumulative = 0;
+        for (int i = 0; i < LatencyHistogram.bucketCount(); i++) {
+            cumulative += histogram.getBucketCount(i);
+            sample(name + "_bucket", "{le=\"" + seconds(LatencyHistogram.upperBoundNanos(i)) + "\"}", Long.toString(cumulative));
+        }
+        sample(name + "_bucket", "{le=\"+Inf\"}", Long.toString(histogram.getCount()));
+        sample(name + "_sum", "", Double.toString(seconds(histogram.getSumNanos())));
+        sample(name + "_count", "", Long.toString(histogram.getCount()));
+    }
+
+    private void header(String name, String help, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, String labels, String value) {
+        text.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.teamtreehouse.countrymgr.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+//Keeps metrics in memory; registering a name again replaces the previous metric
+public class SimpleMetricsRegistry implements MetricsRegistry {
+    private final Map<String, Consumer<MetricsCollector>> metrics = new LinkedHashMap<>();
+
+    @Override
+    public void counter(String name, String help, LongSupplier value) {
+        register(name, collector -> collector.counter(name, help, value.getAsLong()));
+    }
+
+    @Override
+    public void gauge(String name, String help, DoubleSupplier value) {
+        register(name, collector -> collector.gauge(name, help, value.getAsDouble()));
+    }
+
+    @Override
+    public void histogram(String name, String help, LatencyHistogram histogram) {
+        register(name, collector -> collector.histogram(name, help, histogram.snapshot()));
+    }
+
+    private synchronized void register(String name, Consumer<MetricsCollector> metric) {
+        metrics.put(name, metric);
+    }
+
+    @Override
+    public void collect(MetricsCollector collector) {
+        List<Consumer<MetricsCollector>> registered;
+        synchronized (this) {
+            registered = new ArrayList<>(metrics.values());
+        }
+        // Suppliers are read outside the lock, they may query the pool or Hibernate
+        for (Consumer<MetricsCollector> metric : registered) {
+            metric.accept(collector);
+        }
+    }
+}
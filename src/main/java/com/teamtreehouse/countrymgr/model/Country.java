@@ -1,10 +1,19 @@
 package com.teamtreehouse.countrymgr.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 @Entity
-@Table (name = "Country")
+@Table (name = "Country", indexes = {
+        // The code tie-breaker makes arg-max/arg-min and top-N lookups index seeks
+        @Index(name = "idx_country_internet_users", columnList = "internetUsers, code"),
+        @Index(name = "idx_country_literacy_rate", columnList = "adultLiteracyRate, code"),
+        @Index(name = "idx_country_name", columnList = "name")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "country")
 public class Country {
     @Id
     private String code;
@@ -0,0 +1,62 @@
+package com.teamtreehouse.countrymgr.model;
+
+//Numeric indicator columns of the Country table
+public enum CountryColumn {
+    INTERNET_USERS("internetUsers", "Internet users"),
+    ADULT_LITERACY_RATE("adultLiteracyRate", "Literacy rate");
+
+    private final String attributeName;
+    private final String label;
+
+    CountryColumn(String attributeName, String label) {
+        this.attributeName = attributeName;
+        this.label = label;
+    }
+
+    //Finds a column by the start of its label or attribute name, ignoring case, e.g. "internet" or "literacy"
+    public static CountryColumn parse(String name) {
+        String wanted = name.trim().toLowerCase();
+        if (!wanted.isEmpty()) {
+            for (CountryColumn column : values()) {
+                if (column.label.toLowerCase().startsWith(wanted)
+                        || column.attributeName.toLowerCase().startsWith(wanted)
+                        || column.name().equalsIgnoreCase(wanted)) {
+                    return column;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown column: '" + name + "'");
+    }
+
+    //Name of the mapped attribute, usable in HQL and Criteria queries
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    //Reads this column from a country without copying the boxed value
+    public Double valueOf(Country country) {
+        switch (this) {
+            case INTERNET_USERS:
+                return country.getInternetUsers();
+            case ADULT_LITERACY_RATE:
+                return country.getAdultLiteracyRate();
+            default:
+                throw new IllegalStateException("Unknown column: " + this);
+        }
+    }
+
+    public Double valueOf(CountryView country) {
+        switch (this) {
+            case INTERNET_USERS:
+                return country.internetUsers();
+            case ADULT_LITERACY_RATE:
+                return country.adultLiteracyRate();
+            default:
+                throw new IllegalStateException("Unknown column: " + this);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.teamtreehouse.countrymgr.model;
+
+//Immutable, unmanaged copy of a Country row for screens that only read data
+public record CountryView(String code, String name, Double internetUsers, Double adultLiteracyRate) {
+
+    public static CountryView of(Country country) {
+        return new CountryView(
+                country.getCode(),
+                country.getName(),
+                country.getInternetUsers(),
+                country.getAdultLiteracyRate()
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package com.teamtreehouse.countrymgr.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+//A World Bank indicator, e.g. IT.NET.USER.ZS for internet users per 100 people
+@Entity
+@Table (name = "Indicator")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "indicator")
+public class Indicator {
+    @Id
+    private String id;
+
+    @Column
+    private String name;
+
+    //Default constructor for JPA
+    public Indicator() {}
+
+    public Indicator(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return "Indicator{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                '}';
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
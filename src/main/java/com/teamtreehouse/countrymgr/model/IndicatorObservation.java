@@ -0,0 +1,5 @@
+package com.teamtreehouse.countrymgr.model;
+
+//Immutable, unmanaged copy of an IndicatorValue row
+public record IndicatorObservation(String countryCode, String indicatorId, int year, Double value) {
+}
@@ -0,0 +1,63 @@
+package com.teamtreehouse.countrymgr.model;
+
+import jakarta.persistence.*;
+
+//The value of one indicator for one country in one year. The key columns double as foreign keys;
+//the country and indicator associations are lazy and read-only, set them through the id
+@Entity
+@Table (name = "IndicatorValue", indexes = {
+        // Cross-sections read every country of one indicator and year
+        @Index(name = "idx_indicator_value_year", columnList = "indicatorId, observationYear")
+})
+public class IndicatorValue {
+    @EmbeddedId
+    private IndicatorValueId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "countryCode", insertable = false, updatable = false)
+    private Country country;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "indicatorId", insertable = false, updatable = false)
+    private Indicator indicator;
+
+    // VALUE is a keyword in H2
+    @Column(name = "observedValue")
+    private Double value;
+
+    //Default constructor for JPA
+    public IndicatorValue() {}
+
+    public IndicatorValue(IndicatorValueId id, Double value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return "IndicatorValue{" +
+                "id=" + id +
+                ", value=" + value +
+                '}';
+    }
+
+    public IndicatorValueId getId() {
+        return id;
+    }
+
+    public Country getCountry() {
+        return country;
+    }
+
+    public Indicator getIndicator() {
+        return indicator;
+    }
+
+    public Double getValue() {
+        return value;
+    }
+
+    public void setValue(Double value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,66 @@
+package com.teamtreehouse.countrymgr.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+//Composite key of an observation: which country, which indicator and which year
+@Embeddable
+public class IndicatorValueId implements Serializable {
+    @Column(name = "countryCode")
+    private String countryCode;
+
+    @Column(name = "indicatorId")
+    private String indicatorId;
+
+    // YEAR is a keyword in H2
+    @Column(name = "observationYear")
+    private int year;
+
+    //Default constructor for JPA
+    public IndicatorValueId() {}
+
+    public IndicatorValueId(String countryCode, String indicatorId, int year) {
+        this.countryCode = countryCode;
+        this.indicatorId = indicatorId;
+        this.year = year;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public String getIndicatorId() {
+        return indicatorId;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndicatorValueId)) {
+            return false;
+        }
+        IndicatorValueId other = (IndicatorValueId) o;
+        return year == other.year
+                && Objects.equals(countryCode, other.countryCode)
+                && Objects.equals(indicatorId, other.indicatorId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(countryCode, indicatorId, year);
+    }
+
+    @Override
+    public String toString() {
+        return countryCode + "/" + indicatorId + "/" + year;
+    }
+}
@@ -0,0 +1,522 @@
+package com.teamtreehouse.countrymgr.repository;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.stats.ColumnSummary;
+import com.teamtreehouse.countrymgr.stats.StatisticsSummary;
+import jakarta.persistence.criteria.CriteriaQuery;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.Query;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+//Database access for Country data
+public class CountryRepository {
+    private static final CountryColumn[] COLUMNS = CountryColumn.values();
+
+    private static final String VIEW_QUERY =
+            "select new com.teamtreehouse.countrymgr.model.CountryView(c.code, c.name, c.internetUsers, c.adultLiteracyRate) "
+                    + "from Country c";
+
+    // count(c), then count/min/max/avg for each numeric column
+    private static final String STATISTICS_QUERY = buildStatisticsQuery();
+
+    // Codes per IN-list query in findAllByCodes, from hibernate.countrymgr.multi_load.batch_size
+    public static final String MULTI_LOAD_BATCH_SIZE = "hibernate.countrymgr.multi_load.batch_size";
+    private static final int DEFAULT_MULTI_LOAD_BATCH_SIZE = 500;
+
+    // Statements per JDBC batch in updateValues, from hibernate.jdbc.batch_size
+    private static final String JDBC_BATCH_SIZE = "hibernate.jdbc.batch_size";
+    private static final int DEFAULT_JDBC_BATCH_SIZE = 50;
+
+    private final SessionFactory sessionFactory;
+    private final int multiLoadBatchSize;
+    private final int jdbcBatchSize;
+    // Run after bulk changes, which entity listeners never see
+    private final List<Runnable> bulkChangeListeners = new CopyOnWriteArrayList<>();
+    private final List<RowChangeListener> rowChangeListeners = new CopyOnWriteArrayList<>();
+    // JDBC statement setting each column by code, built on first use
+    private Map<CountryColumn, String> updateValueSql;
+
+    public CountryRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        this.multiLoadBatchSize = intSetting(sessionFactory, MULTI_LOAD_BATCH_SIZE, DEFAULT_MULTI_LOAD_BATCH_SIZE);
+        this.jdbcBatchSize = intSetting(sessionFactory, JDBC_BATCH_SIZE, DEFAULT_JDBC_BATCH_SIZE);
+    }
+
+    // Table and column names as Hibernate maps them, so the statements follow the physical naming strategy
+    private synchronized String updateValueSql(CountryColumn column) {
+        if (updateValueSql == null) {
+            AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getMappingMetamodel()
+                    .getEntityDescriptor(Country.class);
+            Map<CountryColumn, String> statements = new EnumMap<>(CountryColumn.class);
+            for (CountryColumn each : COLUMNS) {
+                statements.put(each, "update " + persister.getTableName()
+                        + " set " + persister.getPropertyColumnNames(each.getAttributeName())[0] + " = ?"
+                        + " where " + persister.getIdentifierColumnNames()[0] + " = ?");
+            }
+            updateValueSql = statements;
+        }
+        return updateValueSql.get(column);
+    }
+
+    private static int intSetting(SessionFactory sessionFactory, String name, int defaultValue) {
+        Object value = sessionFactory.getProperties().get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.toString().trim());
+    }
+
+    private static String buildStatisticsQuery() {
+        StringBuilder hql = new StringBuilder("select count(c)");
+        for (CountryColumn column : COLUMNS) {
+            String attribute = "c." + column.getAttributeName();
+            hql.append(", count(").append(attribute).append(')')
+                    .append(", min(").append(attribute).append(')')
+                    .append(", max(").append(attribute).append(')')
+                    .append(", avg(").append(attribute).append(')');
+        }
+        return hql.append(" from Country c").toString();
+    }
+
+    //Loads every country as a managed entity
+    public List<Country> fetchAll() {
+        try (Session session = sessionFactory.openSession()) {
+            CriteriaQuery<Country> criteria = session.getCriteriaBuilder().createQuery(Country.class);
+            criteria.from(Country.class);
+            return session.createQuery(criteria).getResultList();
+        }
+    }
+
+    //Retrieves a country by its code, or null if there is none
+    public Country fetchByCode(String code) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(Country.class, code);
+        }
+    }
+
+    //Loads the countries with the given codes in one session, in the order of the codes, with null for codes
+    //that match no country. Countries in the second-level cache are taken from it; the rest are read with
+    //one IN-list query per hibernate.countrymgr.multi_load.batch_size codes instead of one query per code
+    public List<Country> findAllByCodes(Collection<String> codes) {
+        return findAllByCodes(codes, multiLoadBatchSize);
+    }
+
+    public List<Country> findAllByCodes(Collection<String> codes, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        if (codes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Session session = sessionFactory.openSession()) {
+            return session.byMultipleIds(Country.class)
+                    .with(CacheMode.NORMAL)
+                    .withBatchSize(batchSize)
+                    .enableOrderedReturn(true)
+                    .multiLoad(new ArrayList<>(codes));
+        }
+    }
+
+    public void save(Country country) {
+        sessionFactory.inTransaction(session -> session.persist(country));
+        evict(country.getCode());
+    }
+
+    //Copies the state of a detached country onto the stored one
+    public void update(Country country) {
+        sessionFactory.inTransaction(session -> session.merge(country));
+        evict(country.getCode());
+    }
+
+    //Deletes a country, with its indicator values, by its code and returns false if there was none
+    public boolean delete(String code) {
+        boolean deleted = sessionFactory.fromTransaction(session -> {
+            Country country = session.get(Country.class, code);
+            if (country == null) {
+                return false;
+            }
+            session.createMutationQuery("delete from IndicatorValue v where v.id.countryCode = :code")
+                    .setParameter("code", code)
+                    .executeUpdate();
+            session.remove(country);
+            return true;
+        });
+        evict(code);
+        return deleted;
+    }
+
+    //Sets a column of many countries, given as code -> value (null clears it), in one transaction of its own.
+    //Returns the number of countries updated
+    public int updateValues(CountryColumn column, Map<String, Double> valuesByCode) {
+        int updated = sessionFactory.fromTransaction(session -> updateValues(session, column, valuesByCode));
+        bulkChanged();
+        return updated;
+    }
+
+    //Sets a column of many countries, given as code -> value (null clears it), without loading any Country.
+    //The updates go to the database in JDBC batches of hibernate.jdbc.batch_size statements, in the
+    //transaction of the session; call bulkChanged() once it commits. Returns the number of countries updated
+    public int updateValues(Session session, CountryColumn column, Map<String, Double> valuesByCode) {
+        if (valuesByCode.isEmpty()) {
+            return 0;
+        }
+        String sql = updateValueSql(column);
+        return session.doReturningWork(connection -> {
+            int total = 0;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int pending = 0;
+                for (Map.Entry<String, Double> entry : valuesByCode.entrySet()) {
+                    if (entry.getValue() == null) {
+                        statement.setNull(1, Types.DOUBLE);
+                    } else {
+                        statement.setDouble(1, entry.getValue());
+                    }
+                    statement.setString(2, entry.getKey());
+                    statement.addBatch();
+                    if (++pending == jdbcBatchSize) {
+                        total += updateCount(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    total += updateCount(statement.executeBatch());
+                }
+            }
+            return total;
+        });
+    }
+
+    private static int updateCount(int[] counts) throws SQLException {
+        int total = 0;
+        for (int count : counts) {
+            if (count == Statement.EXECUTE_FAILED) {
+                throw new SQLException("Batched update failed");
+            }
+            // Drivers may report success without a count; each statement targets one code
+            total += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return total;
+    }
+
+    //The given codes that belong to a stored country, read without loading any Country
+    public Set<String> findStoredCodes(Session session, Collection<String> codes) {
+        Set<String> stored = new HashSet<>();
+        for (List<String> chunk : chunks(codes)) {
+            stored.addAll(session.createQuery("select c.code from Country c where c.code in :codes", String.class)
+                    .setParameterList("codes", chunk)
+                    .getResultList());
+        }
+        return stored;
+    }
+
+    //Deletes the countries with the given codes, and their indicator values, without loading them, with bulk
+    //statements of hibernate.countrymgr.multi_load.batch_size codes in the transaction of the session; call
+    //bulkChanged() once it commits. Returns the number of countries deleted
+    public int deleteByCodes(Session session, Collection<String> codes) {
+        int total = 0;
+        for (List<String> chunk : chunks(codes)) {
+            session.createMutationQuery("delete from IndicatorValue v where v.id.countryCode in :codes")
+                    .setParameterList("codes", chunk)
+                    .executeUpdate();
+            total += session.createMutationQuery("delete from Country c where c.code in :codes")
+                    .setParameterList("codes", chunk)
+                    .executeUpdate();
+        }
+        return total;
+    }
+
+    //Deletes every country whose value in a column lies between min and max, inclusive, and their indicator
+    //values, with two bulk statements in the transaction of the session; call bulkChanged() once it commits.
+    //Returns the number of countries deleted
+    public int deleteInRange(Session session, CountryColumn column, double min, double max) {
+        String predicate = "c." + column.getAttributeName() + " between :min and :max";
+        session.createMutationQuery("delete from IndicatorValue v where v.id.countryCode in "
+                        + "(select c.code from Country c where " + predicate + ")")
+                .setParameter("min", min)
+                .setParameter("max", max)
+                .executeUpdate();
+        return session.createMutationQuery("delete from Country c where " + predicate)
+                .setParameter("min", min)
+                .setParameter("max", max)
+                .executeUpdate();
+    }
+
+    private List<List<String>> chunks(Collection<String> codes) {
+        List<String> all = new ArrayList<>(codes);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += multiLoadBatchSize) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + multiLoadBatchSize)));
+        }
+        return chunks;
+    }
+
+    //Registers a callback run after bulk updates or deletes of rows that are not known one by one, such as
+    //deleteInRange, e.g. to drop statistics or in-memory copies kept up to date by entity events, which bulk
+    //statements do not fire
+    public void addBulkChangeListener(Runnable listener) {
+        bulkChangeListeners.add(listener);
+    }
+
+    //Told which countries bulk statements changed when their codes are known, instead of a bulk change
+    @FunctionalInterface
+    public interface RowChangeListener {
+        //stored are the changed countries as they are now; removed are the changed codes no longer stored
+        void rowsChanged(List<CountryView> stored, Set<String> removed);
+    }
+
+    //Registers a callback run after bulk updates or deletes of known codes, e.g. to apply them to statistics
+    //kept up to date by entity events one row at a time instead of reading the whole table again
+    public void addRowChangeListener(RowChangeListener listener) {
+        rowChangeListeners.add(listener);
+    }
+
+    //Drops the given countries from the second-level cache and tells the row change listeners how they are
+    //stored now, reading them back in chunks; run after committing bulk statements on those codes
+    public void rowsChanged(Collection<String> codes) {
+        Cache cache = sessionFactory.getCache();
+        for (String code : codes) {
+            cache.evictEntityData(Country.class, code);
+        }
+        cache.evictQueryRegions();
+        if (rowChangeListeners.isEmpty() || codes.isEmpty()) {
+            return;
+        }
+        List<CountryView> stored = new ArrayList<>();
+        try (Session session = sessionFactory.openSession()) {
+            for (List<String> chunk : chunks(codes)) {
+                stored.addAll(session.createQuery(VIEW_QUERY + " where c.code in :codes", CountryView.class)
+                        .setParameterList("codes", chunk)
+                        .setReadOnly(true)
+                        .getResultList());
+            }
+        }
+        Set<String> removed = new HashSet<>(codes);
+        for (CountryView country : stored) {
+            removed.remove(country.code());
+        }
+        for (RowChangeListener listener : rowChangeListeners) {
+            listener.rowsChanged(stored, removed);
+        }
+    }
+
+    //Bulk statements skip the persistence context, so cached countries may be stale; run after committing
+    //the statements of the session taking methods
+    public void bulkChanged() {
+        evictAll();
+        for (Runnable listener : bulkChangeListeners) {
+            listener.run();
+        }
+    }
+
+    //Computes the statistics of every numeric column with one aggregate query, without loading any Country
+    public StatisticsSummary fetchStatistics() {
+        try (Session session = sessionFactory.openSession()) {
+            Object[] row = session.createQuery(STATISTICS_QUERY, Object[].class)
+                    .setReadOnly(true)
+                    .setCacheable(true)
+                    .getSingleResult();
+
+            long rowCount = ((Number) row[0]).longValue();
+            Map<CountryColumn, ColumnSummary> summaries = new EnumMap<>(CountryColumn.class);
+            int index = 1;
+            for (CountryColumn column : COLUMNS) {
+                long count = ((Number) row[index]).longValue();
+                Number min = (Number) row[index + 1];
+                Number max = (Number) row[index + 2];
+                Number average = (Number) row[index + 3];
+                index += 4;
+
+                if (count == 0) {
+                    summaries.put(column, new ColumnSummary(column, 0, rowCount, Double.NaN, Double.NaN, 0.0, null, null));
+                    continue;
+                }
+                summaries.put(column, new ColumnSummary(
+                        column,
+                        count,
+                        rowCount - count,
+                        min.doubleValue(),
+                        max.doubleValue(),
+                        average.doubleValue(),
+                        fetchNameWithValue(session, column, min.doubleValue()),
+                        fetchNameWithValue(session, column, max.doubleValue())
+                ));
+            }
+            return new StatisticsSummary(rowCount, summaries);
+        }
+    }
+
+    //Name of the first country, by code, holding the given value in a column; a seek on the column's index
+    private static String fetchNameWithValue(Session session, CountryColumn column, double value) {
+        List<String> names = session.createQuery(
+                        "select c.name from Country c where c." + column.getAttributeName() + " = :value order by c.code",
+                        String.class)
+                .setParameter("value", value)
+                .setReadOnly(true)
+                .setCacheable(true)
+                .setMaxResults(1)
+                .getResultList();
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    //Loads every country as a read-only projection, skipping entity snapshots and dirty checking
+    public List<CountryView> fetchAllViews() {
+        try (Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            return session.createQuery(VIEW_QUERY, CountryView.class)
+                    .setReadOnly(true)
+                    .setCacheable(true)
+                    .getResultList();
+        }
+    }
+
+    //Up to size countries with a code after the given one (or from the start when it is null), by code.
+    //Seeks on the primary key index instead of skipping rows with OFFSET
+    public List<CountryView> fetchPageAfter(String afterCode, int size) {
+        try (Session session = sessionFactory.openSession()) {
+            if (afterCode == null) {
+                return session.createQuery(VIEW_QUERY + " order by c.code", CountryView.class)
+                        .setReadOnly(true)
+                        .setMaxResults(size)
+                        .getResultList();
+            }
+            return session.createQuery(VIEW_QUERY + " where c.code > :code order by c.code", CountryView.class)
+                    .setParameter("code", afterCode)
+                    .setReadOnly(true)
+                    .setMaxResults(size)
+                    .getResultList();
+        }
+    }
+
+    //Up to size countries with a code before the given one, by code
+    public List<CountryView> fetchPageBefore(String beforeCode, int size) {
+        try (Session session = sessionFactory.openSession()) {
+            List<CountryView> page = new ArrayList<>(
+                    session.createQuery(VIEW_QUERY + " where c.code < :code order by c.code desc", CountryView.class)
+                            .setParameter("code", beforeCode)
+                            .setReadOnly(true)
+                            .setMaxResults(size)
+                            .getResultList());
+            Collections.reverse(page);
+            return page;
+        }
+    }
+
+    //The n countries with the highest (or lowest) value in a column, skipping missing values.
+    //Reads the first n entries of the column's index instead of sorting the table
+    public List<CountryView> fetchTop(CountryColumn column, int n, boolean descending) {
+        String attribute = "c." + column.getAttributeName();
+        String direction = descending ? " desc" : " asc";
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(VIEW_QUERY + " where " + attribute + " is not null"
+                            + " order by " + attribute + direction + ", c.code" + direction, CountryView.class)
+                    .setReadOnly(true)
+                    .setMaxResults(n)
+                    .getResultList();
+        }
+    }
+
+    //Up to limit countries whose value in a column lies between min and max, inclusive, in ascending order
+    public List<CountryView> fetchRange(CountryColumn column, double min, double max, int limit) {
+        String attribute = "c." + column.getAttributeName();
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(VIEW_QUERY + " where " + attribute + " between :min and :max"
+                            + " order by " + attribute + ", c.code", CountryView.class)
+                    .setParameter("min", min)
+                    .setParameter("max", max)
+                    .setReadOnly(true)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+    }
+
+    //Feeds every country to the consumer one row at a time, by code. Rows are read forward only, in chunks of
+    //hibernate.jdbc.fetch_size, through a stateless session so nothing is kept in a persistence context
+    public void streamViews(Consumer<CountryView> consumer) {
+        streamViews(null, null, consumer);
+    }
+
+    //Feeds the countries with a code from fromCode, inclusive, to toCode, exclusive, to the consumer the same
+    //way, seeking on the primary key index; a null bound leaves that end open
+    public void streamViews(String fromCode, String toCode, Consumer<CountryView> consumer) {
+        String where = fromCode == null && toCode == null ? ""
+                : fromCode == null ? " where c.code < :to"
+                : toCode == null ? " where c.code >= :from"
+                : " where c.code >= :from and c.code < :to";
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Query<CountryView> query = session.createQuery(VIEW_QUERY + where + " order by c.code", CountryView.class)
+                    .setReadOnly(true);
+            if (fromCode != null) {
+                query.setParameter("from", fromCode);
+            }
+            if (toCode != null) {
+                query.setParameter("to", toCode);
+            }
+            try (ScrollableResults<CountryView> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    consumer.accept(results.get());
+                }
+            }
+        }
+    }
+
+    //Codes splitting the table into ranges of partitionSize countries, in code order: the first range ends
+    //before the first code and the last one starts at the last code. Reads only the codes, forward only
+    public List<String> fetchPartitionBounds(int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("partitionSize must be positive: " + partitionSize);
+        }
+        List<String> bounds = new ArrayList<>();
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             ScrollableResults<String> codes = session.createQuery("select c.code from Country c order by c.code",
+                             String.class)
+                     .setReadOnly(true)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+            long row = 0;
+            while (codes.next()) {
+                if (row > 0 && row % partitionSize == 0) {
+                    bounds.add(codes.get());
+                }
+                row++;
+            }
+        }
+        return bounds;
+    }
+
+    //Drops a country from the second-level cache together with every cached query result.
+    //Writes through a Session already keep the caches consistent; this also covers writes made elsewhere
+    public void evict(String code) {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(Country.class, code);
+        cache.evictQueryRegions();
+    }
+
+    //Drops every cached country and query result, e.g. after a bulk import through a StatelessSession
+    public void evictAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(Country.class);
+        cache.evictQueryRegions();
+    }
+}
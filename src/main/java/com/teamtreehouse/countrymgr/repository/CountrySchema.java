@@ -0,0 +1,65 @@
+package com.teamtreehouse.countrymgr.repository;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+//Makes sure the indexes declared on the Country table exist, whatever hibernate.hbm2ddl.auto is set to
+public final class CountrySchema {
+
+    private CountrySchema() {
+    }
+
+    //Creates the declared indexes that are missing and returns their names
+    public static List<String> verifyIndexes(SessionFactory sessionFactory) {
+        Table table = Country.class.getAnnotation(Table.class);
+        List<String> created = new ArrayList<>();
+        sessionFactory.inSession(session -> session.doWork(connection -> {
+            Set<String> existing = existingIndexes(connection, table.name());
+            for (Index index : table.indexes()) {
+                if (!existing.contains(index.name().toUpperCase(Locale.ROOT))) {
+                    createIndex(connection, table.name(), index);
+                    created.add(index.name());
+                }
+            }
+        }));
+        return created;
+    }
+
+    //Index names of a table, upper cased
+    private static Set<String> existingIndexes(Connection connection, String tableName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String storedName = metaData.storesUpperCaseIdentifiers() ? tableName.toUpperCase(Locale.ROOT)
+                : metaData.storesLowerCaseIdentifiers() ? tableName.toLowerCase(Locale.ROOT)
+                : tableName;
+        Set<String> names = new HashSet<>();
+        try (ResultSet indexes = metaData.getIndexInfo(null, null, storedName, false, true)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+
+    private static void createIndex(Connection connection, String tableName, Index index) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create " + (index.unique() ? "unique " : "") + "index " + index.name()
+                    + " on " + tableName + " (" + index.columnList() + ")");
+        }
+    }
+}
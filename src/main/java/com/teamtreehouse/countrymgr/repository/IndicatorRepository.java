@@ -0,0 +1,81 @@
+package com.teamtreehouse.countrymgr.repository;
+
+import com.teamtreehouse.countrymgr.model.Indicator;
+import com.teamtreehouse.countrymgr.model.IndicatorObservation;
+import com.teamtreehouse.countrymgr.model.IndicatorValue;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Database access for yearly indicator values
+public class IndicatorRepository {
+    private static final String OBSERVATION =
+            "select new com.teamtreehouse.countrymgr.model.IndicatorObservation("
+                    + "v.id.countryCode, v.id.indicatorId, v.id.year, v.value) from IndicatorValue v";
+
+    private final SessionFactory sessionFactory;
+
+    public IndicatorRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public void save(Indicator indicator) {
+        sessionFactory.inTransaction(session -> session.merge(indicator));
+    }
+
+    public Indicator fetchIndicator(String id) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(Indicator.class, id);
+        }
+    }
+
+    //Every year of one indicator for one country, oldest first; a range scan of the primary key
+    public List<IndicatorObservation> fetchSeries(String countryCode, String indicatorId) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(OBSERVATION
+                            + " where v.id.countryCode = :country and v.id.indicatorId = :indicator"
+                            + " order by v.id.year", IndicatorObservation.class)
+                    .setParameter("country", countryCode)
+                    .setParameter("indicator", indicatorId)
+                    .setReadOnly(true)
+                    .getResultList();
+        }
+    }
+
+    //The series of one indicator for several countries with a single query, keyed by country code
+    public Map<String, List<IndicatorObservation>> fetchSeries(Collection<String> countryCodes, String indicatorId) {
+        Map<String, List<IndicatorObservation>> series = new LinkedHashMap<>();
+        try (Session session = sessionFactory.openSession()) {
+            session.createQuery(OBSERVATION
+                            + " where v.id.countryCode in :countries and v.id.indicatorId = :indicator"
+                            + " order by v.id.countryCode, v.id.year", IndicatorObservation.class)
+                    .setParameterList("countries", countryCodes)
+                    .setParameter("indicator", indicatorId)
+                    .setReadOnly(true)
+                    .getResultList()
+                    .forEach(observation -> series
+                            .computeIfAbsent(observation.countryCode(), code -> new ArrayList<>())
+                            .add(observation));
+        }
+        return series;
+    }
+
+    //The value of one indicator for every country in one year, with each Country fetched in the same
+    //query instead of one select per row
+    public List<IndicatorValue> fetchCrossSection(String indicatorId, int year) {
+        try (Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            return session.createQuery("select v from IndicatorValue v join fetch v.country"
+                            + " where v.id.indicatorId = :indicator and v.id.year = :year"
+                            + " order by v.id.countryCode", IndicatorValue.class)
+                    .setParameter("indicator", indicatorId)
+                    .setParameter("year", year)
+                    .getResultList();
+        }
+    }
+}
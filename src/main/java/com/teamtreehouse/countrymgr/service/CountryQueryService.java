@@ -0,0 +1,66 @@
+package com.teamtreehouse.countrymgr.service;
+
+import com.teamtreehouse.countrymgr.analytics.CountrySnapshot;
+import com.teamtreehouse.countrymgr.analytics.CountrySnapshots;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Top-K and range questions over the numeric Country columns. Against the database they run as limited,
+//index ordered queries, so the whole table is never loaded or sorted. While a CountrySnapshot is loaded the
+//questions are answered from its arrays instead, with a heap bounded to k rows, or a single sort when k is a
+//large share of the rows. Missing values never match
+public class CountryQueryService {
+    private final CountryRepository repository;
+    private final CountrySnapshots snapshots;
+
+    public CountryQueryService(CountryRepository repository) {
+        this(repository, null);
+    }
+
+    public CountryQueryService(CountryRepository repository, CountrySnapshots snapshots) {
+        this.repository = repository;
+        this.snapshots = snapshots;
+    }
+
+    //The k countries with the highest (descending) or lowest values of a column
+    public List<CountryView> topK(CountryColumn column, int k, boolean descending) {
+        requirePositive(k);
+        CountrySnapshot snapshot = loadedSnapshot();
+        if (snapshot != null) {
+            return views(snapshot, snapshot.topK(column, k, descending));
+        }
+        return repository.fetchTop(column, k, descending);
+    }
+
+    //Up to limit countries with a value between min and max, inclusive, lowest first
+    public List<CountryView> range(CountryColumn column, double min, double max, int limit) {
+        requirePositive(limit);
+        CountrySnapshot snapshot = loadedSnapshot();
+        if (snapshot != null) {
+            return views(snapshot, snapshot.range(column, min, max, limit));
+        }
+        return repository.fetchRange(column, min, max, limit);
+    }
+
+    private CountrySnapshot loadedSnapshot() {
+        return snapshots == null ? null : snapshots.current();
+    }
+
+    private static List<CountryView> views(CountrySnapshot snapshot, int[] rows) {
+        List<CountryView> views = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            views.add(snapshot.view(row));
+        }
+        return views;
+    }
+
+    private static void requirePositive(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+    }
+}
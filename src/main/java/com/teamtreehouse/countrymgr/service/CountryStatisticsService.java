@@ -0,0 +1,326 @@
+package com.teamtreehouse.countrymgr.service;
+
+import com.teamtreehouse.countrymgr.analytics.CountrySnapshot;
+import com.teamtreehouse.countrymgr.analytics.CountrySnapshots;
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import com.teamtreehouse.countrymgr.stats.CountryDistribution;
+import com.teamtreehouse.countrymgr.stats.Histogram;
+import com.teamtreehouse.countrymgr.stats.IncrementalStatistics;
+import com.teamtreehouse.countrymgr.stats.ParallelStatistics;
+import com.teamtreehouse.countrymgr.stats.StatisticsSummary;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+//Keeps the Country statistics current without querying the table. The whole table is read once, then every
+//committed insert, update and delete made through a Session is applied by Hibernate event listeners, so
+//reading the statistics costs the same whatever the size of the table. Rolled back writes are never applied.
+//StatelessSession and bulk HQL writes fire no events: pass the rows they changed to rowsChanged(), or call
+//invalidate() to reread the table when those rows are not known.
+//Histograms are kept current the same way. Quantile sketches cannot take values back, so they are rebuilt
+//from the table on a background thread, at most once per countrymgr.statistics.sketchIntervalMillis, reading
+//ranges of the code key on countrymgr.statistics.parallelism fork/join threads. Until a rebuild finishes,
+//distributions report the quantiles of the last one next to the current histograms. While a CountrySnapshot
+//is loaded the sketches are built from its arrays instead of the table.
+//Database work, reading the table or looking up the holder of an extreme, never runs holding the monitor
+//that listeners and readers share: results are built aside and swapped in under it
+public class CountryStatisticsService implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    private final CountryRepository repository;
+    // Sketched instead of the table while a snapshot is loaded; may be null
+    private final CountrySnapshots snapshots;
+    // Least time between two rebuilds of the quantile sketches
+    private static final long SKETCH_INTERVAL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("countrymgr.statistics.sketchIntervalMillis", 1000));
+    // Code ranges read at once by a sketch rebuild, each holding a pooled connection
+    private static final int SKETCH_PARALLELISM = Integer.getInteger("countrymgr.statistics.parallelism",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private IncrementalStatistics statistics = newStatistics();
+    private boolean stale = true;
+    // Bumped by invalidate(), so a rebuild overlapping it leaves the statistics stale
+    private long invalidations;
+    // Changes committed while a rebuild reads the table, applied on top of what it read; null otherwise
+    private List<Consumer<IncrementalStatistics>> changesDuringRebuild;
+    // One rebuild at a time; a lock rather than a monitor, so a virtual thread waiting on it is not pinned
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Bumped by every change, so a rebuild of the sketches knows which changes it may have missed
+    private long version;
+    // Quantiles of the last sketch rebuild and the version it started at; its histograms are not used
+    private CountryDistribution sketches;
+    private long sketchedVersion;
+    private long sketchedNanos;
+    private CompletableFuture<CountryDistribution> pendingSketches;
+    private final ExecutorService sketcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "country-quantile-sketch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ForkJoinPool sketchPool = new ForkJoinPool(SKETCH_PARALLELISM);
+
+    private CountryStatisticsService(CountryRepository repository, CountrySnapshots snapshots) {
+        this.repository = repository;
+        this.snapshots = snapshots;
+    }
+
+    // Holders are looked up by summary() outside the monitor, never by the statistics themselves
+    private static IncrementalStatistics newStatistics() {
+        return new IncrementalStatistics((column, value) -> null);
+    }
+
+    //Creates the service and registers it with the SessionFactory's event listeners. With snapshots, the quantile
+    //sketches are built from the loaded snapshot when there is one
+    public static CountryStatisticsService register(SessionFactory sessionFactory, CountryRepository repository,
+                                                    CountrySnapshots snapshots) {
+        CountryStatisticsService service = new CountryStatisticsService(repository, snapshots);
+        EventListenerRegistry listeners = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_COMMIT_INSERT, service);
+        listeners.appendListeners(EventType.POST_COMMIT_UPDATE, service);
+        listeners.appendListeners(EventType.POST_COMMIT_DELETE, service);
+        return service;
+    }
+
+    //The current statistics; only reads the table on the first call and after invalidate(). Holders of
+    //extremes that went away are looked up first, and a holder still unknown after that is reported as null
+    public StatisticsSummary summary() {
+        refresh();
+        List<IncrementalStatistics.Extreme> unknown;
+        synchronized (this) {
+            unknown = statistics.unknownHolders();
+        }
+        if (!unknown.isEmpty()) {
+            Map<IncrementalStatistics.Extreme, CountryView> found = new HashMap<>();
+            for (IncrementalStatistics.Extreme extreme : unknown) {
+                found.put(extreme, holderOf(extreme.column(), extreme.value()));
+            }
+            synchronized (this) {
+                found.forEach(statistics::holderFound);
+            }
+        }
+        synchronized (this) {
+            return statistics.summary();
+        }
+    }
+
+    //Current histograms with the quantiles of the last sketch rebuild. Only the first call waits for the sketches
+    public CountryDistribution distribution() {
+        Map<CountryColumn, Histogram> histograms = new EnumMap<>(CountryColumn.class);
+        CountryDistribution current;
+        CompletableFuture<CountryDistribution> pending = null;
+        refresh();
+        synchronized (this) {
+            for (CountryColumn column : CountryColumn.values()) {
+                histograms.put(column, statistics.histogram(column));
+            }
+            if (sketches == null
+                    || (sketchedVersion != version && System.nanoTime() - sketchedNanos >= SKETCH_INTERVAL_NANOS)) {
+                pending = rebuildSketches();
+            }
+            current = sketches;
+        }
+        if (current == null) {
+            current = pending.join();
+        }
+        return current.withHistograms(histograms::get);
+    }
+
+    // Called holding the lock; returns the running rebuild if there is one
+    private CompletableFuture<CountryDistribution> rebuildSketches() {
+        if (pendingSketches != null) {
+            return pendingSketches;
+        }
+        long startVersion = version;
+        sketchedNanos = System.nanoTime();
+        CompletableFuture<CountryDistribution> pending = CompletableFuture.supplyAsync(this::readSketches, sketcher);
+        pendingSketches = pending;
+        pending.whenComplete((built, failure) -> sketchesRead(startVersion, built));
+        return pending;
+    }
+
+    // Runs without holding the lock, so readers and listeners are not blocked meanwhile. A loaded snapshot is
+    // sketched from its arrays; otherwise ranges of the code key are read in parallel, each into a sketch of its
+    // own, so no row outlives its task. Either way partitions are sketched on the fork/join pool and combined
+    private CountryDistribution readSketches() {
+        CountrySnapshot snapshot = snapshots == null ? null : snapshots.current();
+        CountryDistribution built;
+        if (snapshot != null) {
+            int partitions = Math.max(1, (snapshot.size() + ParallelStatistics.PARTITION_SIZE - 1)
+                    / ParallelStatistics.PARTITION_SIZE);
+            built = ParallelStatistics.ofPartitions(partitions, partition -> snapshot.distribution(
+                    partition * ParallelStatistics.PARTITION_SIZE,
+                    Math.min(snapshot.size(), (partition + 1) * ParallelStatistics.PARTITION_SIZE)),
+                    CountryDistribution::combine, sketchPool);
+        } else {
+            List<String> bounds = repository.fetchPartitionBounds(ParallelStatistics.PARTITION_SIZE);
+            built = ParallelStatistics.distributionOfCodeRanges(bounds, repository::streamViews, sketchPool);
+        }
+        for (CountryColumn column : CountryColumn.values()) {
+            // Sorts the kept values now, so the threads sharing the sketch afterwards only read it
+            built.get(column).getMedian();
+        }
+        return built;
+    }
+
+    // A failed rebuild keeps the previous sketches; the next read tries again
+    private synchronized void sketchesRead(long startVersion, CountryDistribution built) {
+        pendingSketches = null;
+        if (built != null) {
+            sketches = built;
+            sketchedVersion = startVersion;
+        }
+    }
+
+    // Rebuilds once if the statistics are stale; concurrent callers wait for the same rebuild
+    private void refresh() {
+        if (isStale()) {
+            rebuildLock.lock();
+            try {
+                if (isStale()) {
+                    rebuild();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+    }
+
+    private synchronized boolean isStale() {
+        return stale;
+    }
+
+    //Reads the whole table again. Listeners and readers keep using the previous statistics meanwhile
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            IncrementalStatistics rebuilt = newStatistics();
+            long startInvalidations;
+            synchronized (this) {
+                changesDuringRebuild = new ArrayList<>();
+                startInvalidations = invalidations;
+            }
+            try {
+                repository.streamViews(rebuilt::put);
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+                throw ex;
+            }
+            synchronized (this) {
+                // Each change replaces or removes a whole row, so one the table read already saw does no harm
+                changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                changesDuringRebuild = null;
+                statistics = rebuilt;
+                // A bulk write during the read may have been missed
+                stale = invalidations != startInvalidations;
+                version++;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    //Applies countries changed by bulk statements on known codes, as their entity events would have, e.g. from
+    //CountryRepository's row change listeners
+    public void rowsChanged(List<CountryView> stored, Set<String> removed) {
+        change(statistics -> {
+            removed.forEach(statistics::remove);
+            stored.forEach(statistics::put);
+        });
+    }
+
+    //Marks the statistics out of date after writes the listeners cannot see
+    public synchronized void invalidate() {
+        stale = true;
+        invalidations++;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        put(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        put(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Country) {
+            remove((String) event.getId());
+        }
+    }
+
+    // A seek on the column's (value, code) index, needed only after the holder of an extreme went away
+    private CountryView holderOf(CountryColumn column, Double value) {
+        List<CountryView> holders = repository.fetchRange(column, value, value, 1);
+        return holders.isEmpty() ? null : holders.get(0);
+    }
+
+    private void put(Object entity) {
+        if (entity instanceof Country) {
+            CountryView country = CountryView.of((Country) entity);
+            change(statistics -> statistics.put(country));
+        }
+    }
+
+    private void remove(String code) {
+        change(statistics -> statistics.remove(code));
+    }
+
+    private synchronized void change(Consumer<IncrementalStatistics> change) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+        // While stale the table is reread anyway
+        if (!stale) {
+            change.accept(statistics);
+            version++;
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Country.class;
+    }
+}
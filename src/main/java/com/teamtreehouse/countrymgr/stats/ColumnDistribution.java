@@ -0,0 +1,59 @@
+package com.teamtreehouse.countrymgr.stats;
+
+//Distribution of a single nullable numeric column: approximate quantiles and a fixed-bucket histogram,
+//both in bounded memory and mergeable across partitions
+public class ColumnDistribution {
+    private final QuantileSketch sketch;
+    private final Histogram histogram;
+
+    public ColumnDistribution(double lowerBound, double upperBound, int buckets) {
+        this(new QuantileSketch(), new Histogram(lowerBound, upperBound, buckets));
+    }
+
+    private ColumnDistribution(QuantileSketch sketch, Histogram histogram) {
+        this.sketch = sketch;
+        this.histogram = histogram;
+    }
+
+    //The quantiles of this distribution next to another histogram of the column; the sketch is shared
+    public ColumnDistribution withHistogram(Histogram histogram) {
+        return new ColumnDistribution(sketch, histogram);
+    }
+
+    //Adds one value; missing values are skipped
+    public void accept(Double value) {
+        if (value != null) {
+            accept(value.doubleValue());
+        }
+    }
+
+    public void accept(double value) {
+        sketch.accept(value);
+        histogram.accept(value);
+    }
+
+    //Merges the distribution of another partition into this one
+    public ColumnDistribution combine(ColumnDistribution other) {
+        sketch.combine(other.sketch);
+        histogram.combine(other.histogram);
+        return this;
+    }
+
+    //Number of values in the histogram
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    public double getMedian() {
+        return sketch.quantile(0.5);
+    }
+
+    //Approximate value below which the given fraction of the values lie; NaN without values
+    public double quantile(double fraction) {
+        return sketch.quantile(fraction);
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+}
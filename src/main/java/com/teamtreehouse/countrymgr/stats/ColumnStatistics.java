@@ -0,0 +1,101 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+
+//Running count, sum and extrema of a single nullable numeric column
+public class ColumnStatistics {
+    private long count;
+    private long nullCount;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private String minLabel;
+    private String maxLabel;
+
+    //Adds one value; the label identifies the row holding the current extremum
+    public void accept(Double value, String label) {
+        if (value == null) {
+            nullCount++;
+            return;
+        }
+        accept(value.doubleValue(), label);
+    }
+
+    public void accept(double value, String label) {
+        count++;
+        sum += value;
+        // Strict comparisons keep the first row seen when values tie
+        if (value < min) {
+            min = value;
+            minLabel = label;
+        }
+        if (value > max) {
+            max = value;
+            maxLabel = label;
+        }
+    }
+
+    public void acceptNull() {
+        nullCount++;
+    }
+
+    //Merges statistics computed over another partition into this one
+    public ColumnStatistics combine(ColumnStatistics other) {
+        count += other.count;
+        nullCount += other.nullCount;
+        sum += other.sum;
+        if (other.min < min) {
+            min = other.min;
+            minLabel = other.minLabel;
+        }
+        if (other.max > max) {
+            max = other.max;
+            maxLabel = other.maxLabel;
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    //Number of non null values
+    public long getCount() {
+        return count;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public String getMinLabel() {
+        return minLabel;
+    }
+
+    public String getMaxLabel() {
+        return maxLabel;
+    }
+
+    public ColumnSummary toSummary(CountryColumn column) {
+        if (isEmpty()) {
+            return new ColumnSummary(column, 0, nullCount, Double.NaN, Double.NaN, 0.0, null, null);
+        }
+        return new ColumnSummary(column, count, nullCount, min, max, getAverage(), minLabel, maxLabel);
+    }
+}
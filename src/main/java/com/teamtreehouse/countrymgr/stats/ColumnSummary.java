@@ -0,0 +1,18 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+
+//Immutable result of the statistics of one column; min and max are NaN when the column has no values
+public record ColumnSummary(CountryColumn column,
+                            long count,
+                            long nullCount,
+                            double min,
+                            double max,
+                            double average,
+                            String minName,
+                            String maxName) {
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+
+import java.util.function.Function;
+
+//Distributions of every numeric Country column, built in a single pass
+public class CountryDistribution {
+    private static final CountryColumn[] COLUMNS = CountryColumn.values();
+    // Both columns are percentages, so they share ten buckets of ten points
+    private static final double LOWER_BOUND = 0.0;
+    private static final double UPPER_BOUND = 100.0;
+    private static final int BUCKETS = 10;
+
+    private final ColumnDistribution[] columns = new ColumnDistribution[COLUMNS.length];
+
+    public CountryDistribution() {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnDistribution(LOWER_BOUND, UPPER_BOUND, BUCKETS);
+        }
+    }
+
+    //An empty histogram with the buckets of every column
+    public static Histogram newHistogram() {
+        return new Histogram(LOWER_BOUND, UPPER_BOUND, BUCKETS);
+    }
+
+    public static CountryDistribution ofViews(Iterable<CountryView> countries) {
+        CountryDistribution distribution = new CountryDistribution();
+        for (CountryView country : countries) {
+            distribution.accept(country);
+        }
+        return distribution;
+    }
+
+    public void accept(CountryView country) {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i].accept(COLUMNS[i].valueOf(country));
+        }
+    }
+
+    //Merges distributions built over another partition into this one
+    public CountryDistribution combine(CountryDistribution other) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].combine(other.columns[i]);
+        }
+        return this;
+    }
+
+    //The quantiles of this distribution with other histograms, e.g. ones kept up to date row by row
+    public CountryDistribution withHistograms(Function<CountryColumn, Histogram> histograms) {
+        CountryDistribution distribution = new CountryDistribution();
+        for (int i = 0; i < columns.length; i++) {
+            distribution.columns[i] = columns[i].withHistogram(histograms.apply(COLUMNS[i]));
+        }
+        return distribution;
+    }
+
+    public ColumnDistribution get(CountryColumn column) {
+        return columns[column.ordinal()];
+    }
+}
@@ -0,0 +1,86 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+//Computes the statistics of every numeric Country column in a single pass
+public class CountryStatistics {
+    private static final CountryColumn[] COLUMNS = CountryColumn.values();
+
+    private final ColumnStatistics[] columns = new ColumnStatistics[COLUMNS.length];
+    private long rowCount;
+
+    public CountryStatistics() {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnStatistics();
+        }
+    }
+
+    //Builds the statistics of a whole list of countries
+    public static CountryStatistics of(Iterable<Country> countries) {
+        CountryStatistics statistics = new CountryStatistics();
+        for (Country country : countries) {
+            statistics.accept(country);
+        }
+        return statistics;
+    }
+
+    //Builds the statistics of a list of read-only country rows
+    public static CountryStatistics ofViews(Iterable<CountryView> countries) {
+        CountryStatistics statistics = new CountryStatistics();
+        for (CountryView country : countries) {
+            statistics.accept(country);
+        }
+        return statistics;
+    }
+
+    public void accept(Country country) {
+        rowCount++;
+        String name = country.getName();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i].accept(COLUMNS[i].valueOf(country), name);
+        }
+    }
+
+    public void accept(CountryView country) {
+        rowCount++;
+        String name = country.name();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i].accept(COLUMNS[i].valueOf(country), name);
+        }
+    }
+
+    //Counts rows whose values are fed column by column through get(column), e.g. from columnar data
+    public void addRows(long rows) {
+        rowCount += rows;
+    }
+
+    //Merges statistics computed over another partition into this one
+    public CountryStatistics combine(CountryStatistics other) {
+        rowCount += other.rowCount;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].combine(other.columns[i]);
+        }
+        return this;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public ColumnStatistics get(CountryColumn column) {
+        return columns[column.ordinal()];
+    }
+
+    public StatisticsSummary toSummary() {
+        Map<CountryColumn, ColumnSummary> summaries = new EnumMap<>(CountryColumn.class);
+        for (CountryColumn column : COLUMNS) {
+            summaries.put(column, get(column).toSummary(column));
+        }
+        return new StatisticsSummary(rowCount, summaries);
+    }
+}
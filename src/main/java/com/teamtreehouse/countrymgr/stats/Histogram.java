@@ -0,0 +1,100 @@
+package com.teamtreehouse.countrymgr.stats;
+
+//Counts of values in equal-width buckets between a lower and an upper bound, inclusive, with separate counts
+//for the values outside them. Histograms with the same buckets can be merged. Not thread safe
+public class Histogram {
+    private final double lowerBound;
+    private final double upperBound;
+    private final double bucketWidth;
+    private final long[] counts;
+    private long underflowCount;
+    private long overflowCount;
+
+    public Histogram(double lowerBound, double upperBound, int buckets) {
+        if (!(upperBound > lowerBound) || buckets < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid histogram: " + buckets + " buckets from " + lowerBound + " to " + upperBound);
+        }
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.bucketWidth = (upperBound - lowerBound) / buckets;
+        this.counts = new long[buckets];
+    }
+
+    //Adds a value; NaN is ignored
+    public void accept(double value) {
+        add(value, 1);
+    }
+
+    //Takes back a value added before; NaN is ignored
+    public void remove(double value) {
+        add(value, -1);
+    }
+
+    private void add(double value, int delta) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value < lowerBound) {
+            underflowCount += delta;
+        } else if (value > upperBound) {
+            overflowCount += delta;
+        } else {
+            // The upper bound itself belongs to the last bucket
+            counts[Math.min(counts.length - 1, (int) ((value - lowerBound) / bucketWidth))] += delta;
+        }
+    }
+
+    //An independent histogram with the same buckets and counts
+    public Histogram copy() {
+        return new Histogram(lowerBound, upperBound, counts.length).combine(this);
+    }
+
+    //Merges the counts of a histogram with the same buckets into this one
+    public Histogram combine(Histogram other) {
+        if (other.lowerBound != lowerBound || other.upperBound != upperBound || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Cannot merge histograms with different buckets");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        underflowCount += other.underflowCount;
+        overflowCount += other.overflowCount;
+        return this;
+    }
+
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    //Lowest value counted by a bucket
+    public double getBucketLowerBound(int bucket) {
+        return lowerBound + bucket * bucketWidth;
+    }
+
+    //Bound below which a bucket's values lie; only the last bucket includes it
+    public double getBucketUpperBound(int bucket) {
+        return bucket == counts.length - 1 ? upperBound : lowerBound + (bucket + 1) * bucketWidth;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public long getUnderflowCount() {
+        return underflowCount;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    //Number of values added, inside or outside the bounds
+    public long getTotalCount() {
+        long total = underflowCount + overflowCount;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
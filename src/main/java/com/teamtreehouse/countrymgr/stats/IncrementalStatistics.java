@@ -0,0 +1,234 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+//Statistics of every numeric Country column kept up to date one row at a time. Per country only its column
+//values are held, so an update or delete knows what to take back, and each column counts its distinct values
+//in a sorted multiset, so the minimum and maximum survive deletions without a rescan. The country holding an
+//extreme is remembered while it is known; after it is removed the new holder is looked up once. Histograms
+//with the buckets of CountryDistribution are kept the same way. Not thread safe
+public class IncrementalStatistics {
+    private static final CountryColumn[] COLUMNS = CountryColumn.values();
+
+    // Column values of every country, by code; NaN where a value is missing
+    private final Map<String, double[]> rows = new HashMap<>();
+    private final ColumnValues[] columns = new ColumnValues[COLUMNS.length];
+    private final BiFunction<CountryColumn, Double, CountryView> holderLookup;
+    // Computed on the first read after a change
+    private StatisticsSummary summary;
+
+    //holderLookup returns the country with the lowest code holding a value of a column, or null if none does.
+    //It is called by summary(); callers that must not wait on it there look holders up through unknownHolders()
+    public IncrementalStatistics(BiFunction<CountryColumn, Double, CountryView> holderLookup) {
+        this.holderLookup = holderLookup;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnValues();
+        }
+    }
+
+    //Adds a country, or replaces the row already held for its code
+    public void put(CountryView country) {
+        double[] values = new double[COLUMNS.length];
+        for (CountryColumn column : COLUMNS) {
+            Double value = column.valueOf(country);
+            values[column.ordinal()] = value == null ? Double.NaN : value;
+        }
+        double[] previous = rows.put(country.code(), values);
+        for (int i = 0; i < columns.length; i++) {
+            if (previous != null && Double.compare(previous[i], values[i]) == 0) {
+                // Unchanged, but a holder of an extreme may have been renamed
+                columns[i].rename(country.code(), country.name());
+                continue;
+            }
+            if (previous != null) {
+                columns[i].remove(previous[i], country.code());
+            }
+            columns[i].add(values[i], country.code(), country.name());
+        }
+        summary = null;
+    }
+
+    //Removes a country by its code; does nothing if it is not held
+    public void remove(String code) {
+        double[] previous = rows.remove(code);
+        if (previous != null) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].remove(previous[i], code);
+            }
+            summary = null;
+        }
+    }
+
+    public void clear() {
+        rows.clear();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnValues();
+        }
+        summary = null;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    //A copy of the histogram of a column's current values
+    public Histogram histogram(CountryColumn column) {
+        return columns[column.ordinal()].histogram.copy();
+    }
+
+    public StatisticsSummary summary() {
+        if (summary == null) {
+            Map<CountryColumn, ColumnSummary> summaries = new EnumMap<>(CountryColumn.class);
+            for (CountryColumn column : COLUMNS) {
+                summaries.put(column, columns[column.ordinal()].toSummary(column, holderLookup));
+            }
+            summary = new StatisticsSummary(rows.size(), summaries);
+        }
+        return summary;
+    }
+
+    //The minimums and maximums whose holder is not known, to be looked up and passed to holderFound()
+    public List<Extreme> unknownHolders() {
+        List<Extreme> unknown = new ArrayList<>();
+        for (CountryColumn column : COLUMNS) {
+            ColumnValues values = columns[column.ordinal()];
+            if (values.count == 0) {
+                continue;
+            }
+            if (values.minHolder == null) {
+                unknown.add(new Extreme(column, values.values.firstKey()));
+            }
+            if (values.maxHolder == null && (values.minHolder != null || values.values.size() > 1)) {
+                unknown.add(new Extreme(column, values.values.lastKey()));
+            }
+        }
+        return unknown;
+    }
+
+    //Records the country a lookup found holding an extreme; ignored if the extreme has changed since
+    public void holderFound(Extreme extreme, CountryView country) {
+        ColumnValues values = columns[extreme.column().ordinal()];
+        Holder holder = ColumnValues.lookUp(extreme.column(), extreme.value(), (column, value) -> country);
+        if (holder == null || values.count == 0) {
+            return;
+        }
+        if (values.minHolder == null && values.values.firstKey() == extreme.value()) {
+            values.minHolder = holder;
+            summary = null;
+        }
+        if (values.maxHolder == null && values.values.lastKey() == extreme.value()) {
+            values.maxHolder = holder;
+            summary = null;
+        }
+    }
+
+    //A minimum or maximum value of a column
+    public record Extreme(CountryColumn column, double value) {
+    }
+
+    //A country holding the minimum or maximum of a column
+    private record Holder(double value, String code, String name) {
+    }
+
+    //Count, sum, histogram and a multiset of the values of one column, with the holders of its extremes when
+    //known. A holder is always the country with the lowest code among those with the extreme value, as in the
+    //database queries, and is null when that country is not known
+    private static final class ColumnValues {
+        // Value -> number of countries holding it
+        private final TreeMap<Double, Integer> values = new TreeMap<>();
+        private final Histogram histogram = CountryDistribution.newHistogram();
+        private long count;
+        private long nullCount;
+        private double sum;
+        private Holder minHolder;
+        private Holder maxHolder;
+
+        void add(double value, String code, String name) {
+            if (Double.isNaN(value)) {
+                nullCount++;
+                return;
+            }
+            int holders = values.merge(value, 1, Integer::sum);
+            histogram.accept(value);
+            count++;
+            sum += value;
+            minHolder = holderAfterAdd(minHolder, values.firstKey(), holders, value, code, name);
+            maxHolder = holderAfterAdd(maxHolder, values.lastKey(), holders, value, code, name);
+        }
+
+        // The value is now held by holders countries. Without a known holder another country with the same
+        // value may have a lower code, so the holder stays unknown
+        private static Holder holderAfterAdd(Holder holder, double extreme, int holders,
+                                             double value, String code, String name) {
+            if (value != extreme) {
+                return holder;
+            }
+            if (holders == 1 || (holder != null && code.compareTo(holder.code()) < 0)) {
+                return new Holder(value, code, name);
+            }
+            return holder;
+        }
+
+        void remove(double value, String code) {
+            if (Double.isNaN(value)) {
+                nullCount--;
+                return;
+            }
+            values.computeIfPresent(value, (key, holders) -> holders == 1 ? null : holders - 1);
+            histogram.remove(value);
+            count--;
+            // Start again from zero rather than keep the rounding error of every removal
+            sum = count == 0 ? 0.0 : sum - value;
+            if (minHolder != null && minHolder.code().equals(code)) {
+                minHolder = null;
+            }
+            if (maxHolder != null && maxHolder.code().equals(code)) {
+                maxHolder = null;
+            }
+        }
+
+        void rename(String code, String name) {
+            if (minHolder != null && minHolder.code().equals(code)) {
+                minHolder = new Holder(minHolder.value(), code, name);
+            }
+            if (maxHolder != null && maxHolder.code().equals(code)) {
+                maxHolder = new Holder(maxHolder.value(), code, name);
+            }
+        }
+
+        ColumnSummary toSummary(CountryColumn column, BiFunction<CountryColumn, Double, CountryView> holderLookup) {
+            if (count == 0) {
+                return new ColumnSummary(column, 0, nullCount, Double.NaN, Double.NaN, 0.0, null, null);
+            }
+            double min = values.firstKey();
+            double max = values.lastKey();
+            if (minHolder == null) {
+                minHolder = lookUp(column, min, holderLookup);
+            }
+            if (maxHolder == null) {
+                maxHolder = lookUp(column, max, holderLookup);
+            }
+            return new ColumnSummary(column, count, nullCount, min, max, sum / count,
+                    minHolder == null ? null : minHolder.name(), maxHolder == null ? null : maxHolder.name());
+        }
+
+        // Null if the lookup no longer agrees, e.g. a write committed whose event is not applied yet
+        private static Holder lookUp(CountryColumn column, double value,
+                                     BiFunction<CountryColumn, Double, CountryView> holderLookup) {
+            CountryView country = holderLookup.apply(column, value);
+            if (country == null || !Double.valueOf(value).equals(column.valueOf(country))) {
+                return null;
+            }
+            return new Holder(value, country.code(), country.name());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+//Computes the statistics and distributions of large country lists on a fork/join pool. The list is split in
+//halves down to a fixed partition size, every partition is aggregated on its own and the partial results are
+//combined left to right, so the result depends only on the list, never on the number of threads or on the
+//order in which tasks finish. Tables too large to hold in memory are split instead into ranges of the code
+//key, each read from the database by its own task straight into its own accumulator
+public final class ParallelStatistics {
+    // Rows aggregated by a single task; large enough to make forking cheap next to the work
+    public static final int PARTITION_SIZE = 16_384;
+
+    private ParallelStatistics() {
+    }
+
+    public static CountryStatistics of(List<Country> countries) {
+        return of(countries, ForkJoinPool.commonPool());
+    }
+
+    public static CountryStatistics of(List<Country> countries, ForkJoinPool pool) {
+        return aggregate(countries, pool, CountryStatistics::new, CountryStatistics::accept, CountryStatistics::combine);
+    }
+
+    public static CountryStatistics ofViews(List<CountryView> countries) {
+        return ofViews(countries, ForkJoinPool.commonPool());
+    }
+
+    public static CountryStatistics ofViews(List<CountryView> countries, ForkJoinPool pool) {
+        return aggregate(countries, pool, CountryStatistics::new, CountryStatistics::accept, CountryStatistics::combine);
+    }
+
+    //Reads the countries with a code from fromCode, inclusive, to toCode, exclusive; a null bound leaves that
+    //end open
+    @FunctionalInterface
+    public interface CodeRangeReader {
+        void read(String fromCode, String toCode, Consumer<CountryView> consumer);
+    }
+
+    //Statistics of the code ranges between consecutive bounds, and before the first and from the last bound
+    public static CountryStatistics ofCodeRanges(List<String> bounds, CodeRangeReader reader, ForkJoinPool pool) {
+        return aggregateCodeRanges(bounds, reader, pool, CountryStatistics::new, CountryStatistics::accept,
+                CountryStatistics::combine);
+    }
+
+    //Distributions of the code ranges between consecutive bounds, and before the first and from the last bound
+    public static CountryDistribution distributionOfCodeRanges(List<String> bounds, CodeRangeReader reader,
+                                                               ForkJoinPool pool) {
+        return aggregateCodeRanges(bounds, reader, pool, CountryDistribution::new, CountryDistribution::accept,
+                CountryDistribution::combine);
+    }
+
+    //Aggregates partitions 0 to count - 1, each by its own task, and combines the results in partition order
+    public static <R> R ofPartitions(int count, IntFunction<R> partition, BinaryOperator<R> combine,
+                                     ForkJoinPool pool) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        return pool.invoke(new PartitionsTask<>(0, count, partition, combine));
+    }
+
+    private static <R> R aggregateCodeRanges(List<String> bounds, CodeRangeReader reader, ForkJoinPool pool,
+                                             Supplier<R> accumulator, BiConsumer<R, CountryView> accept,
+                                             BinaryOperator<R> combine) {
+        List<String> indexed = new ArrayList<>(bounds);
+        return ofPartitions(indexed.size() + 1, index -> {
+            R result = accumulator.get();
+            reader.read(index == 0 ? null : indexed.get(index - 1),
+                    index == indexed.size() ? null : indexed.get(index),
+                    country -> accept.accept(result, country));
+            return result;
+        }, combine, pool);
+    }
+
+    private static <T, R> R aggregate(List<T> rows, ForkJoinPool pool, Supplier<R> accumulator,
+                                      BiConsumer<R, T> accept, BinaryOperator<R> combine) {
+        // Splitting reads rows by index, which would be quadratic on a linked list
+        List<T> indexed = rows instanceof RandomAccess ? rows : new ArrayList<>(rows);
+        return pool.invoke(new PartitionTask<>(indexed, 0, indexed.size(), accumulator, accept, combine));
+    }
+
+    //Aggregates rows [from, to) of a list, forking halves while the range is larger than a partition
+    private static final class PartitionTask<T, R> extends RecursiveTask<R> {
+        private final List<T> rows;
+        private final int from;
+        private final int to;
+        private final Supplier<R> accumulator;
+        private final BiConsumer<R, T> accept;
+        private final BinaryOperator<R> combine;
+
+        PartitionTask(List<T> rows, int from, int to, Supplier<R> accumulator,
+                      BiConsumer<R, T> accept, BinaryOperator<R> combine) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.accumulator = accumulator;
+            this.accept = accept;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= PARTITION_SIZE) {
+                R result = accumulator.get();
+                for (int i = from; i < to; i++) {
+                    accept.accept(result, rows.get(i));
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            PartitionTask<T, R> right = new PartitionTask<>(rows, middle, to, accumulator, accept, combine);
+            right.fork();
+            R left = new PartitionTask<>(rows, from, middle, accumulator, accept, combine).compute();
+            // Always the left half first, so ties and rounding come out the same on every run
+            return combine.apply(left, right.join());
+        }
+    }
+
+    //Aggregates partitions [from, to), forking halves down to single partitions
+    private static final class PartitionsTask<R> extends RecursiveTask<R> {
+        private final int from;
+        private final int to;
+        private final IntFunction<R> partition;
+        private final BinaryOperator<R> combine;
+
+        PartitionsTask(int from, int to, IntFunction<R> partition, BinaryOperator<R> combine) {
+            this.from = from;
+            this.to = to;
+            this.partition = partition;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from == 1) {
+                return partition.apply(from);
+            }
+            int middle = (from + to) >>> 1;
+            PartitionsTask<R> right = new PartitionsTask<>(middle, to, partition, combine);
+            right.fork();
+            R left = new PartitionsTask<>(from, middle, partition, combine).compute();
+            return combine.apply(left, right.join());
+        }
+    }
+}
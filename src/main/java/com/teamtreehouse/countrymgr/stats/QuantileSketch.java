@@ -0,0 +1,230 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Approximate quantiles of a stream of values in bounded memory, after the KLL sketch of Karnin, Lang and
+//Liberty. Values are buffered in levels; an item at level h stands for 2^h values. When the sketch is full
+//the lowest full level is sorted and every other item is promoted to the next level, so a few hundred
+//values are kept whatever the stream length. Sketches of separate partitions can be merged. Compactions
+//alternate between keeping the odd and even items instead of flipping a coin, so the same input always
+//gives the same answers. Ranks are accurate to about 1.7 / k of the count. Not thread safe
+public class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+
+    private final int k;
+    private final List<Level> levels = new ArrayList<>();
+    private long count;
+    private int retained;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    // Every value kept, with its weight, in ascending order; rebuilt on the first query after a change
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8: " + k);
+        }
+        this.k = k;
+        levels.add(new Level());
+    }
+
+    //Adds a value; NaN is ignored
+    public void accept(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0 || value < min) {
+            min = value;
+        }
+        if (count == 0 || value > max) {
+            max = value;
+        }
+        count++;
+        levels.get(0).add(value);
+        retained++;
+        sortedValues = null;
+        if (retained >= capacity()) {
+            compress();
+        }
+    }
+
+    //Merges a sketch of another partition into this one
+    public QuantileSketch combine(QuantileSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with k " + k + " and " + other.k);
+        }
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0 || other.min < min) {
+            min = other.min;
+        }
+        if (count == 0 || other.max > max) {
+            max = other.max;
+        }
+        count += other.count;
+        while (levels.size() < other.levels.size()) {
+            levels.add(new Level());
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            Level level = other.levels.get(h);
+            levels.get(h).addAll(level.items, level.size);
+        }
+        retained += other.retained;
+        sortedValues = null;
+        while (retained >= capacity()) {
+            compress();
+        }
+        return this;
+    }
+
+    //Number of values added
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    //Approximate value below which the given fraction of the values lie, e.g. 0.5 for the median;
+    //exact for 0 and 1. NaN when the sketch is empty
+    public double quantile(double fraction) {
+        if (fraction < 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1: " + fraction);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0.0) {
+            return min;
+        }
+        if (fraction == 1.0) {
+            return max;
+        }
+        sort();
+        long rank = (long) Math.ceil(fraction * count);
+        int index = Arrays.binarySearch(cumulativeWeights, rank);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return sortedValues[Math.min(index, sortedValues.length - 1)];
+    }
+
+    //Number of values kept, the memory the sketch actually uses
+    public int getRetainedCount() {
+        return retained;
+    }
+
+    private int capacity(int level) {
+        int height = levels.size() - 1 - level;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(2.0 / 3.0, height)));
+    }
+
+    private int capacity() {
+        int total = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    //Halves the lowest level that reached its capacity
+    private void compress() {
+        for (int h = 0; h < levels.size(); h++) {
+            Level level = levels.get(h);
+            if (level.size < capacity(h)) {
+                continue;
+            }
+            if (h + 1 == levels.size()) {
+                levels.add(new Level());
+            }
+            retained -= level.compactInto(levels.get(h + 1));
+            return;
+        }
+    }
+
+    private void sort() {
+        if (sortedValues != null) {
+            return;
+        }
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int size = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            Level level = levels.get(h);
+            System.arraycopy(level.items, 0, values, size, level.size);
+            Arrays.fill(weights, size, size + level.size, 1L << h);
+            size += level.size;
+        }
+        sortByValue(values, weights);
+        for (int i = 1; i < weights.length; i++) {
+            weights[i] += weights[i - 1];
+        }
+        sortedValues = values;
+        cumulativeWeights = weights;
+    }
+
+    //Insertion sort of the few hundred kept values, moving each weight along with its value
+    private static void sortByValue(double[] values, long[] weights) {
+        for (int i = 1; i < values.length; i++) {
+            double value = values[i];
+            long weight = weights[i];
+            int j = i - 1;
+            while (j >= 0 && values[j] > value) {
+                values[j + 1] = values[j];
+                weights[j + 1] = weights[j];
+                j--;
+            }
+            values[j + 1] = value;
+            weights[j + 1] = weight;
+        }
+    }
+
+    private static final class Level {
+        private double[] items = new double[16];
+        private int size;
+        // Whether the next compaction keeps the odd rather than the even items
+        private boolean keepOdd;
+
+        void add(double value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        void addAll(double[] values, int length) {
+            if (size + length > items.length) {
+                items = Arrays.copyOf(items, Math.max(items.length * 2, size + length));
+            }
+            System.arraycopy(values, 0, items, size, length);
+            size += length;
+        }
+
+        //Promotes every other item to the next level and returns how many items were dropped.
+        //With an odd number of items the largest stays here
+        int compactInto(Level next) {
+            Arrays.sort(items, 0, size);
+            int pairs = size / 2;
+            int start = keepOdd ? 1 : 0;
+            keepOdd = !keepOdd;
+            for (int i = 0; i < pairs; i++) {
+                next.add(items[2 * i + start]);
+            }
+            int kept = size - 2 * pairs;
+            if (kept == 1) {
+                items[0] = items[size - 1];
+            }
+            size = kept;
+            return pairs;
+        }
+    }
+}
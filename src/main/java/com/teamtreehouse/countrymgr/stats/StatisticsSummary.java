@@ -0,0 +1,19 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+//Immutable statistics of every numeric Country column, whether computed in memory or by the database
+public record StatisticsSummary(long rowCount, Map<CountryColumn, ColumnSummary> columns) {
+
+    public StatisticsSummary {
+        columns = Collections.unmodifiableMap(new EnumMap<>(columns));
+    }
+
+    public ColumnSummary get(CountryColumn column) {
+        return columns.get(column);
+    }
+}
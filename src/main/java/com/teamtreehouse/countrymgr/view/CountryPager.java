@@ -0,0 +1,55 @@
+package com.teamtreehouse.countrymgr.view;
+
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+
+import java.util.List;
+
+//Moves through the countries one page at a time, ordered by code. Every move is a single bounded
+//query seeking from the first or last code of the current page
+public class CountryPager {
+    private final CountryRepository repository;
+    private final int pageSize;
+    private List<CountryView> page = List.of();
+
+    public CountryPager(CountryRepository repository, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        this.repository = repository;
+        this.pageSize = pageSize;
+    }
+
+    public List<CountryView> first() {
+        page = repository.fetchPageAfter(null, pageSize);
+        return page;
+    }
+
+    //Moves to the next page and returns false, staying put, when the current page is the last one
+    public boolean next() {
+        if (page.isEmpty()) {
+            return false;
+        }
+        return moveTo(repository.fetchPageAfter(page.get(page.size() - 1).code(), pageSize));
+    }
+
+    //Moves to the previous page and returns false, staying put, when the current page is the first one
+    public boolean previous() {
+        if (page.isEmpty()) {
+            return false;
+        }
+        return moveTo(repository.fetchPageBefore(page.get(0).code(), pageSize));
+    }
+
+    private boolean moveTo(List<CountryView> candidate) {
+        if (candidate.isEmpty()) {
+            return false;
+        }
+        page = candidate;
+        return true;
+    }
+
+    public List<CountryView> current() {
+        return page;
+    }
+}
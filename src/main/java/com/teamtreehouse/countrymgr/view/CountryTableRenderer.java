@@ -0,0 +1,132 @@
+package com.teamtreehouse.countrymgr.view;
+
+import com.teamtreehouse.countrymgr.model.CountryView;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+//Writes the country table without going through Formatter. Rows are laid out in a reused StringBuilder,
+//decimals are formatted by hand, and text reaches the writer in large chunks.
+//The layout matches "%-5s %30s %25s %20s" with decimals as "%.2f" and "--" for missing values. Rounding is
+//half up on the binary value, so a value that only looks like a tie, e.g. 1.005, can round down where
+//Formatter rounds up
+public class CountryTableRenderer {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String NO_VALUE = "--";
+    // Above this, value * 100 no longer fits exactly in a long
+    private static final double MAX_FIXED_POINT = 1e15;
+
+    private final Writer out;
+    private final StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 256);
+    private final char[] digits = new char[24];
+
+    public CountryTableRenderer(Writer out) {
+        this.out = out;
+    }
+
+    public void header() {
+        chunk.append("----------------------------------------------------------------------------------").append('\n');
+        chunk.append("                                 COUNTRY DATA                                     ").append('\n');
+        chunk.append("---------------------------------------------------------------------------------------").append('\n');
+        padRight("Code", 5);
+        chunk.append(' ');
+        padLeft("Name", 30);
+        chunk.append(' ');
+        padLeft("Internet Users", 25);
+        chunk.append(' ');
+        padLeft("Literacy Rate", 20);
+        chunk.append(' ').append('\n');
+        chunk.append("---------------------------------------------------------------------------------------").append('\n');
+        flushIfFull();
+    }
+
+    public void row(CountryView country) {
+        padRight(country.code(), 5);
+        chunk.append(' ');
+        padLeft(country.name(), 30);
+        chunk.append(' ');
+        decimal(country.internetUsers(), 25);
+        chunk.append(' ');
+        decimal(country.adultLiteracyRate(), 20);
+        chunk.append('\n');
+        flushIfFull();
+    }
+
+    //Writes out everything rendered so far
+    public void flush() {
+        try {
+            writeChunk();
+            out.flush();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    private void flushIfFull() {
+        if (chunk.length() >= CHUNK_SIZE) {
+            try {
+                writeChunk();
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        out.append(chunk);
+        chunk.setLength(0);
+    }
+
+    private void padRight(String text, int width) {
+        String value = String.valueOf(text);
+        chunk.append(value);
+        for (int i = value.length(); i < width; i++) {
+            chunk.append(' ');
+        }
+    }
+
+    private void padLeft(String text, int width) {
+        String value = String.valueOf(text);
+        for (int i = value.length(); i < width; i++) {
+            chunk.append(' ');
+        }
+        chunk.append(value);
+    }
+
+    private void decimal(Double value, int width) {
+        if (value == null) {
+            padLeft(NO_VALUE, width);
+            return;
+        }
+        double number = value;
+        if (Double.isNaN(number) || Double.isInfinite(number) || Math.abs(number) >= MAX_FIXED_POINT) {
+            padLeft(String.format("%.2f", number), width);
+            return;
+        }
+
+        long hundredths = Math.round(Math.abs(number) * 100);
+        // Like Formatter, keep the sign of values that round to zero, e.g. -0.001 -> "-0.00"
+        boolean negative = Double.doubleToRawLongBits(number) < 0;
+        // Fill digits from the right: two decimals, the point, then the integer part
+        int position = digits.length;
+        digits[--position] = (char) ('0' + hundredths % 10);
+        hundredths /= 10;
+        digits[--position] = (char) ('0' + hundredths % 10);
+        hundredths /= 10;
+        digits[--position] = '.';
+        do {
+            digits[--position] = (char) ('0' + hundredths % 10);
+            hundredths /= 10;
+        } while (hundredths > 0);
+        if (negative) {
+            digits[--position] = '-';
+        }
+
+        int length = digits.length - position;
+        for (int i = length; i < width; i++) {
+            chunk.append(' ');
+        }
+        chunk.append(digits, position, length);
+    }
+}
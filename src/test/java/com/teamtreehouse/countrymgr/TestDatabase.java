@@ -0,0 +1,27 @@
+package com.teamtreehouse.countrymgr;
+
+import org.hibernate.SessionFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+//Fresh, empty in-memory H2 databases for tests, configured like hibernate.cfg.xml apart from the connection,
+//schema and caching
+public final class TestDatabase {
+
+    private TestDatabase() {
+    }
+
+    public static SessionFactory inMemory() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("hibernate.connection.url", "jdbc:h2:mem:test-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        settings.put("hibernate.hbm2ddl.auto", "create-drop");
+        settings.put("hibernate.show_sql", "false");
+        settings.put("hibernate.format_sql", "false");
+        settings.put("hibernate.use_sql_comments", "false");
+        settings.put("hibernate.cache.use_second_level_cache", "false");
+        settings.put("hibernate.cache.use_query_cache", "false");
+        return HibernateUtil.buildSessionFactory(settings);
+    }
+}
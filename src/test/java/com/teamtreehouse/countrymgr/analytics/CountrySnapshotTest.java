@@ -0,0 +1,94 @@
+package com.teamtreehouse.countrymgr.analytics;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.stats.ColumnSummary;
+import com.teamtreehouse.countrymgr.stats.CountryDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CountrySnapshotTest {
+
+    private static CountrySnapshot snapshot(int size) {
+        Random random = new Random(17);
+        List<CountryView> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            // Few distinct values, so ties are common
+            Double internetUsers = random.nextInt(5) == 0 ? null : (double) random.nextInt(20);
+            rows.add(new CountryView(String.format("C%04d", i), "Country " + i, internetUsers, 50.0));
+        }
+        return CountrySnapshot.of(rows);
+    }
+
+    private static double[] values(CountrySnapshot snapshot, int[] rows) {
+        double[] values = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            values[i] = snapshot.value(CountryColumn.INTERNET_USERS, rows[i]);
+        }
+        return values;
+    }
+
+    @Test
+    void statisticsSkipMissingValues() {
+        CountrySnapshot snapshot = CountrySnapshot.of(List.of(
+                new CountryView("AAA", "Alpha", 10.0, null),
+                new CountryView("BBB", "Bravo", null, null),
+                new CountryView("CCC", "Charlie", 30.0, null)));
+
+        ColumnSummary summary = snapshot.statistics().toSummary().get(CountryColumn.INTERNET_USERS);
+
+        assertEquals(2L, summary.count());
+        assertEquals(1L, summary.nullCount());
+        assertEquals(20.0, summary.average(), 0.0);
+        assertEquals("Alpha", summary.minName());
+        assertEquals("Charlie", summary.maxName());
+    }
+
+    @Test
+    void sortedRowsBreakTiesByCode() {
+        CountrySnapshot snapshot = CountrySnapshot.of(List.of(
+                new CountryView("AAA", "Alpha", 20.0, null),
+                new CountryView("BBB", "Bravo", 10.0, null),
+                new CountryView("CCC", "Charlie", 20.0, null),
+                new CountryView("DDD", "Delta", null, null)));
+
+        assertArrayEquals(new int[]{1, 0, 2}, snapshot.sortedRows(CountryColumn.INTERNET_USERS, false));
+        assertArrayEquals(new int[]{2, 0, 1}, snapshot.sortedRows(CountryColumn.INTERNET_USERS, true));
+        assertArrayEquals(new int[]{0, 2}, snapshot.filter(CountryColumn.INTERNET_USERS, 15.0, 25.0));
+    }
+
+    @Test
+    void sortingAndKeepingAHeapAgree() {
+        CountrySnapshot snapshot = snapshot(400);
+
+        // 10 rows are kept by a heap, 300 by sorting every row
+        for (boolean descending : new boolean[]{false, true}) {
+            int[] heap = snapshot.topK(CountryColumn.INTERNET_USERS, 10, descending);
+            int[] sorted = snapshot.topK(CountryColumn.INTERNET_USERS, 300, descending);
+            assertArrayEquals(heap, Arrays.copyOf(sorted, 10));
+        }
+        int[] heap = snapshot.range(CountryColumn.INTERNET_USERS, 5.0, 12.0, 10);
+        int[] sorted = snapshot.range(CountryColumn.INTERNET_USERS, 5.0, 12.0, 300);
+        assertArrayEquals(heap, Arrays.copyOf(sorted, 10));
+        assertEquals(5.0, values(snapshot, sorted)[0], 0.0);
+    }
+
+    @Test
+    void distributionsOfRowRangesAddUp() {
+        CountrySnapshot snapshot = snapshot(400);
+
+        CountryDistribution whole = snapshot.distribution(0, snapshot.size());
+        CountryDistribution halves = snapshot.distribution(0, 150).combine(snapshot.distribution(150, 400));
+
+        assertEquals(whole.get(CountryColumn.INTERNET_USERS).getCount(),
+                halves.get(CountryColumn.INTERNET_USERS).getCount());
+        assertEquals(400L, halves.get(CountryColumn.ADULT_LITERACY_RATE).getCount());
+    }
+}
@@ -0,0 +1,190 @@
+package com.teamtreehouse.countrymgr.batch;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchCommandParserTest {
+    private Path directory;
+
+    @AfterEach
+    void deleteScripts() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private Path script(String name, String... lines) throws IOException {
+        if (directory == null) {
+            directory = Files.createTempDirectory("batch");
+        }
+        Path file = directory.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> names(List<BatchCommand> commands) {
+        return commands.stream().map(BatchCommand::name).toList();
+    }
+
+    @Test
+    void tokenizeSplitsOnWhitespaceAndKeepsQuotedWordsTogether() {
+        assertEquals(List.of("edit", "--name", "Bahamas, The", "--code", "BHS"),
+                BatchCommandParser.tokenize("edit  --name \"Bahamas, The\"\t--code BHS", "test"));
+    }
+
+    @Test
+    void tokenizeJoinsQuotesInsideAWordAndKeepsEmptyQuotes() {
+        assertEquals(List.of("Cote d Ivoire", ""), BatchCommandParser.tokenize("Cote\" d \"Ivoire \"\"", "test"));
+    }
+
+    @Test
+    void unterminatedQuotesAreRejectedWithTheirSource() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.tokenize("add --name \"Chile", "script.txt:3"));
+
+        assertEquals("script.txt:3: unterminated quote", ex.getMessage());
+    }
+
+    @Test
+    void optionsTakeTheNextWordOrAValueAfterEquals() {
+        BatchCommand command = BatchCommandParser.parse(
+                List.of("edit", "--code=arg", "--internet", "70.5", "--literacy", "--"), "test");
+
+        assertEquals("ARG", command.code());
+        assertEquals(70.5, command.doubleOption("internet"), 0.0);
+        assertNull(command.doubleOption("literacy"));
+    }
+
+    @Test
+    void invalidOperationsFailWhenParsed() {
+        assertThrows(IllegalArgumentException.class, () -> BatchCommandParser.parse(List.of("drop"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("edit", "--code"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("edit", "--code", "ARG", "--population", "3"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("edit", "--code", "ARG", "--internet", "many"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("add", "--code", "ARGE", "--name", "Argentina"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("view", "--code", "ARG"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("import", "a.csv", "b.csv"), "test"));
+    }
+
+    @Test
+    void deleteTakesACodeOrARange() {
+        BatchCommand range = BatchCommandParser.parse(
+                List.of("delete", "--column", "literacy", "--min", "0", "--max", "12.5"), "test");
+
+        assertEquals(CountryColumn.ADULT_LITERACY_RATE, range.column());
+        assertEquals(12.5, range.doubleOption("max"), 0.0);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("delete", "--code", "ARG", "--column", "internet"), "test"));
+        assertEquals("test: delete takes no --column with --code", ex.getMessage());
+        ex = assertThrows(IllegalArgumentException.class, () -> BatchCommandParser.parse(List.of("delete"), "test"));
+        assertEquals("test: delete needs --code or --column", ex.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(
+                        List.of("delete", "--column", "area", "--min", "0", "--max", "1"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(
+                        List.of("delete", "--column", "internet", "--min", "--", "--max", "1"), "test"));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parse(List.of("edit", "--code", "ARG", "--min", "1"), "test"));
+    }
+
+    @Test
+    void argumentsAreSeparatedBySemicolons() throws IOException {
+        List<BatchCommand> commands = BatchCommandParser.parseArguments(
+                new String[]{"edit", "--code", "ARG", "--internet", "70", ";", "delete", "--code", "XYZ", ";"});
+
+        assertEquals(List.of("edit", "delete"), names(commands));
+        assertEquals("operation 2", commands.get(1).source());
+    }
+
+    @Test
+    void scriptsSkipBlankLinesAndComments() throws IOException {
+        List<BatchCommand> commands = BatchCommandParser.parseScript(
+                new StringReader("# changes\n\nadd --code NEW --name \"New Land\"\n  statistics\n"), "body");
+
+        assertEquals(List.of("add", "statistics"), names(commands));
+        assertEquals("body:3", commands.get(0).source());
+        assertEquals("New Land", commands.get(0).option("name"));
+    }
+
+    @Test
+    void readingStopsOnceThereAreTooManyOperations() throws IOException {
+        List<BatchCommand> commands = BatchCommandParser.parseScript(
+                new StringReader("view\n# note\nstatistics\nview\nnot an operation\n"), "body", 2);
+
+        assertEquals(List.of("view", "statistics", "view"), names(commands));
+    }
+
+    @Test
+    void textFromAReaderCannotRunScripts() throws IOException {
+        Path secret = script("secret.txt", "first-word-of-the-file");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parseScript(new StringReader("view\nscript " + secret), "request line"));
+        assertEquals("request line:2: script is not allowed here", ex.getMessage());
+    }
+
+    @Test
+    void nestedScriptsResolveAgainstTheScriptNamingThem() throws IOException {
+        script("parts/inner.txt", "delete --code XYZ");
+        script("parts/middle.txt", "script inner.txt", "statistics");
+        Path outer = script("outer.txt", "view", "script parts/middle.txt");
+
+        List<BatchCommand> commands = BatchCommandParser.parseScript(outer);
+
+        assertEquals(List.of("view", "delete", "statistics"), names(commands));
+        assertTrue(commands.get(1).source().endsWith("inner.txt:1"), commands.get(1).source());
+    }
+
+    @Test
+    void aScriptMayRunTheSameScriptTwice() throws IOException {
+        script("common.txt", "statistics");
+        Path outer = script("outer.txt", "script common.txt", "script ./common.txt");
+
+        assertEquals(List.of("statistics", "statistics"), names(BatchCommandParser.parseScript(outer)));
+    }
+
+    @Test
+    void scriptsCannotRunThemselves() throws IOException {
+        Path self = script("self.txt", "view", "script self.txt");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> BatchCommandParser.parseScript(self));
+        assertTrue(ex.getMessage().endsWith("self.txt:2: self.txt is already being run"), ex.getMessage());
+    }
+
+    @Test
+    void scriptsCannotRunEachOther() throws IOException {
+        script("sub/b.txt", "script ../a.txt");
+        Path a = script("a.txt", "script sub/b.txt");
+
+        assertThrows(IllegalArgumentException.class, () -> BatchCommandParser.parseScript(a));
+    }
+}
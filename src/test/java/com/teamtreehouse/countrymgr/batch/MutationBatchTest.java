@@ -0,0 +1,186 @@
+package com.teamtreehouse.countrymgr.batch;
+
+import com.teamtreehouse.countrymgr.TestDatabase;
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MutationBatchTest {
+    private SessionFactory sessionFactory;
+    private CountryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = TestDatabase.inMemory();
+        repository = new CountryRepository(sessionFactory);
+        sessionFactory.inTransaction(session -> {
+            session.persist(new Country.CountryBuilder("AAA", "Alpha")
+                    .withInternetUsers(10.0).withAdultLiteracyRate(90.0).build());
+            session.persist(new Country.CountryBuilder("BBB", "Bravo")
+                    .withInternetUsers(20.0).withAdultLiteracyRate(80.0).build());
+            session.persist(new Country.CountryBuilder("CCC", "Charlie")
+                    .withInternetUsers(30.0).withAdultLiteracyRate(70.0).build());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    // Queues every line of the script, sources "test:1", "test:2", ...
+    private MutationBatch queue(String script) throws IOException {
+        MutationBatch batch = new MutationBatch(sessionFactory, repository, 100);
+        for (BatchCommand command : BatchCommandParser.parseScript(new StringReader(script), "test")) {
+            batch.add(command);
+        }
+        return batch;
+    }
+
+    private void assertUnchanged() {
+        assertEquals(10.0, repository.fetchByCode("AAA").getInternetUsers(), 0.0);
+        assertEquals(20.0, repository.fetchByCode("BBB").getInternetUsers(), 0.0);
+        assertEquals(30.0, repository.fetchByCode("CCC").getInternetUsers(), 0.0);
+        assertNull(repository.fetchByCode("DDD"));
+    }
+
+    @Test
+    void mixedGroupIsAppliedInOrder() throws IOException {
+        MutationBatch batch = queue("""
+                add --code DDD --name Delta --internet 40
+                edit --code AAA --internet 11
+                edit --code BBB --literacy --
+                edit --code DDD --internet 41
+                delete --code CCC
+                edit --code AAA --name Alfa
+                """);
+
+        assertEquals(6, batch.flush());
+
+        Country alpha = repository.fetchByCode("AAA");
+        assertEquals("Alfa", alpha.getName());
+        assertEquals(11.0, alpha.getInternetUsers(), 0.0);
+        assertEquals(90.0, alpha.getAdultLiteracyRate(), 0.0);
+        assertNull(repository.fetchByCode("BBB").getAdultLiteracyRate());
+        assertEquals(20.0, repository.fetchByCode("BBB").getInternetUsers(), 0.0);
+        assertNull(repository.fetchByCode("CCC"));
+        assertEquals(41.0, repository.fetchByCode("DDD").getInternetUsers(), 0.0);
+        assertEquals(6L, batch.getCommittedCount());
+    }
+
+    @Test
+    void deletingACountryTwiceInOneRunRollsBackTheGroup() throws IOException {
+        MutationBatch batch = queue("""
+                edit --code AAA --internet 99
+                delete --code BBB
+                delete --code BBB
+                """);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, batch::flush);
+
+        assertEquals("test:3: no country found BBB", ex.getMessage());
+        assertUnchanged();
+        assertEquals(0L, batch.getCommittedCount());
+    }
+
+    @Test
+    void editingAMissingCountryRollsBackTheGroup() throws IOException {
+        MutationBatch batch = queue("""
+                delete --code CCC
+                edit --code AAA --internet 99
+                edit --code ZZZ --internet 1
+                """);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, batch::flush);
+
+        assertEquals("test:3: no country found ZZZ", ex.getMessage());
+        assertUnchanged();
+    }
+
+    @Test
+    void constraintFailureAtCommitNamesItsOperationAndRollsBackTheGroup() throws IOException {
+        // The insert only reaches the database at commit, after the bulk edit before it has run
+        MutationBatch batch = queue("""
+                edit --code AAA --internet 99
+                add --code BBB --name Bravo
+                edit --code CCC --name Charlie
+                """);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, batch::flush);
+
+        assertTrue(ex.getMessage().startsWith("test:2: "), ex.getMessage());
+        assertUnchanged();
+        assertEquals(0L, batch.getCommittedCount());
+    }
+
+    @Test
+    void rangeDeleteRemovesEveryCountryInsideIt() throws IOException {
+        List<String> bulkChanges = new ArrayList<>();
+        repository.addBulkChangeListener(() -> bulkChanges.add("bulk"));
+        MutationBatch batch = queue("delete --column internet --min 15 --max 30");
+
+        assertEquals(1, batch.flush());
+
+        assertEquals(10.0, repository.fetchByCode("AAA").getInternetUsers(), 0.0);
+        assertNull(repository.fetchByCode("BBB"));
+        assertNull(repository.fetchByCode("CCC"));
+        assertEquals(List.of("bulk"), bulkChanges);
+    }
+
+    @Test
+    void rowChangeListenersAreToldWhatBulkStatementsChanged() throws IOException {
+        List<CountryView> stored = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        repository.addRowChangeListener((views, codes) -> {
+            stored.addAll(views);
+            removed.addAll(codes);
+        });
+        repository.addBulkChangeListener(() -> removed.add("bulk"));
+        MutationBatch batch = queue("""
+                edit --code AAA --internet 12
+                delete --code BBB
+                """);
+
+        batch.flush();
+
+        assertEquals(List.of(new CountryView("AAA", "Alpha", 12.0, 90.0)), stored);
+        assertEquals(List.of("BBB"), removed);
+    }
+
+    @Test
+    void bulkMethodsSkipUnknownCodes() {
+        Map<String, Double> values = new HashMap<>();
+        values.put("AAA", null);
+        values.put("CCC", 31.0);
+        values.put("ZZZ", 1.0);
+
+        assertEquals(2, repository.updateValues(CountryColumn.INTERNET_USERS, values));
+        assertNull(repository.fetchByCode("AAA").getInternetUsers());
+        assertEquals(31.0, repository.fetchByCode("CCC").getInternetUsers(), 0.0);
+
+        sessionFactory.inTransaction(session -> {
+            assertEquals(Set.of("AAA", "BBB"), repository.findStoredCodes(session, List.of("AAA", "BBB", "ZZZ")));
+            assertEquals(1, repository.deleteByCodes(session, List.of("BBB", "ZZZ")));
+            assertEquals(0, repository.deleteInRange(session, CountryColumn.INTERNET_USERS, 100.0, 200.0));
+        });
+        assertNull(repository.fetchByCode("BBB"));
+    }
+}
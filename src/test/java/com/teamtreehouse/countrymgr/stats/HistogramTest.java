@@ -0,0 +1,70 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistogramTest {
+
+    @Test
+    void boundsBelongToTheEdgeBuckets() {
+        Histogram histogram = new Histogram(0.0, 100.0, 10);
+        histogram.accept(0.0);
+        histogram.accept(9.99);
+        histogram.accept(10.0);
+        histogram.accept(100.0);
+
+        assertEquals(2L, histogram.getCount(0));
+        assertEquals(1L, histogram.getCount(1));
+        assertEquals(1L, histogram.getCount(9));
+        assertEquals(0L, histogram.getUnderflowCount() + histogram.getOverflowCount());
+    }
+
+    @Test
+    void valuesOutsideTheBoundsAreCountedApartAndNanIsIgnored() {
+        Histogram histogram = new Histogram(0.0, 100.0, 10);
+        histogram.accept(-0.5);
+        histogram.accept(100.5);
+        histogram.accept(Double.NaN);
+
+        assertEquals(1L, histogram.getUnderflowCount());
+        assertEquals(1L, histogram.getOverflowCount());
+        assertEquals(2L, histogram.getTotalCount());
+    }
+
+    @Test
+    void removeTakesBackAnAcceptedValue() {
+        Histogram histogram = new Histogram(0.0, 100.0, 10);
+        histogram.accept(42.0);
+        histogram.accept(42.5);
+        histogram.accept(150.0);
+
+        histogram.remove(42.0);
+        histogram.remove(150.0);
+        histogram.remove(Double.NaN);
+
+        assertEquals(1L, histogram.getCount(4));
+        assertEquals(0L, histogram.getOverflowCount());
+        assertEquals(1L, histogram.getTotalCount());
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        Histogram histogram = new Histogram(0.0, 100.0, 10);
+        histogram.accept(5.0);
+        Histogram copy = histogram.copy();
+
+        histogram.accept(5.0);
+
+        assertEquals(1L, copy.getCount(0));
+        assertEquals(2L, histogram.getCount(0));
+    }
+
+    @Test
+    void onlyHistogramsWithTheSameBucketsCombine() {
+        Histogram histogram = new Histogram(0.0, 100.0, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.combine(new Histogram(0.0, 100.0, 5)));
+    }
+}
@@ -0,0 +1,131 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IncrementalStatisticsTest {
+    // Stands in for the table: rows by code, searched in code order like the indexed lookup
+    private final Map<String, CountryView> table = new TreeMap<>();
+    private int lookups;
+    private final IncrementalStatistics statistics = new IncrementalStatistics((column, value) -> {
+        lookups++;
+        return table.values().stream()
+                .filter(country -> value.equals(column.valueOf(country)))
+                .findFirst()
+                .orElse(null);
+    });
+
+    private void put(String code, String name, Double internetUsers) {
+        CountryView country = new CountryView(code, name, internetUsers, null);
+        table.put(code, country);
+        statistics.put(country);
+    }
+
+    private void remove(String code) {
+        table.remove(code);
+        statistics.remove(code);
+    }
+
+    private ColumnSummary internetUsers() {
+        return statistics.summary().get(CountryColumn.INTERNET_USERS);
+    }
+
+    @Test
+    void extremesOfAddedRowsNeedNoLookup() {
+        put("BBB", "Bravo", 10.0);
+        put("AAA", "Alpha", 10.0);
+        put("CCC", "Charlie", 55.0);
+
+        ColumnSummary summary = internetUsers();
+        assertEquals(3L, summary.count());
+        assertEquals("Alpha", summary.minName());
+        assertEquals("Charlie", summary.maxName());
+        assertEquals(25.0, summary.average(), 1e-9);
+        assertEquals(0, lookups);
+    }
+
+    @Test
+    void removingTheHolderOfAnExtremeLooksUpTheNextOne() {
+        put("AAA", "Alpha", 10.0);
+        put("BBB", "Bravo", 20.0);
+        put("CCC", "Charlie", 20.0);
+        internetUsers();
+
+        remove("AAA");
+
+        ColumnSummary summary = internetUsers();
+        assertEquals(20.0, summary.min(), 0.0);
+        assertEquals("Bravo", summary.minName());
+        assertEquals("Bravo", summary.maxName());
+        assertEquals(1, lookups);
+    }
+
+    @Test
+    void updatesTakeTheirOldValueBack() {
+        put("AAA", "Alpha", 10.0);
+        put("BBB", "Bravo", 90.0);
+
+        put("AAA", "Alpha", 95.0);
+        put("BBB", "Bravo", null);
+
+        ColumnSummary summary = internetUsers();
+        assertEquals(1L, summary.count());
+        assertEquals(1L, summary.nullCount());
+        assertEquals(95.0, summary.min(), 0.0);
+        assertEquals(95.0, summary.max(), 0.0);
+        Histogram histogram = statistics.histogram(CountryColumn.INTERNET_USERS);
+        assertEquals(1L, histogram.getTotalCount());
+        assertEquals(1L, histogram.getCount(9));
+    }
+
+    @Test
+    void renamingAHolderKeepsItsValue() {
+        put("AAA", "Alpha", 10.0);
+
+        put("AAA", "Alfa", 10.0);
+
+        assertEquals("Alfa", internetUsers().minName());
+        assertEquals(0, lookups);
+    }
+
+    @Test
+    void holdersCanBeLookedUpOutsideTheStatistics() {
+        IncrementalStatistics withoutLookup = new IncrementalStatistics((column, value) -> null);
+        withoutLookup.put(new CountryView("AAA", "Alpha", 10.0, null));
+        withoutLookup.put(new CountryView("BBB", "Bravo", 20.0, null));
+        withoutLookup.remove("AAA");
+
+        IncrementalStatistics.Extreme extreme = new IncrementalStatistics.Extreme(CountryColumn.INTERNET_USERS, 20.0);
+        assertEquals(List.of(extreme), withoutLookup.unknownHolders());
+        assertNull(withoutLookup.summary().get(CountryColumn.INTERNET_USERS).minName());
+
+        withoutLookup.holderFound(extreme, new CountryView("BBB", "Bravo", 20.0, null));
+
+        assertEquals(List.of(), withoutLookup.unknownHolders());
+        assertEquals("Bravo", withoutLookup.summary().get(CountryColumn.INTERNET_USERS).minName());
+    }
+
+    @Test
+    void aHolderFoundForAnOldExtremeIsIgnored() {
+        IncrementalStatistics withoutLookup = new IncrementalStatistics((column, value) -> null);
+        withoutLookup.put(new CountryView("AAA", "Alpha", 10.0, null));
+        withoutLookup.put(new CountryView("BBB", "Bravo", 20.0, null));
+        withoutLookup.remove("AAA");
+        withoutLookup.put(new CountryView("CCC", "Charlie", 5.0, null));
+
+        withoutLookup.holderFound(new IncrementalStatistics.Extreme(CountryColumn.INTERNET_USERS, 20.0),
+                new CountryView("BBB", "Bravo", 20.0, null));
+
+        ColumnSummary summary = withoutLookup.summary().get(CountryColumn.INTERNET_USERS);
+        assertEquals("Charlie", summary.minName());
+        assertEquals("Bravo", summary.maxName());
+    }
+}
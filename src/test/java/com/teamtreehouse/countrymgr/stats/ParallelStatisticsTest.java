@@ -0,0 +1,89 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import com.teamtreehouse.countrymgr.model.CountryColumn;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelStatisticsTest {
+    // Stands in for the table, read by code range like CountryRepository.streamViews
+    private final NavigableMap<String, CountryView> table = new TreeMap<>();
+    private final List<String> reads = new ArrayList<>();
+
+    private final ParallelStatistics.CodeRangeReader reader = (fromCode, toCode, consumer) -> {
+        synchronized (reads) {
+            reads.add(fromCode + ".." + toCode);
+        }
+        NavigableMap<String, CountryView> range = table;
+        if (fromCode != null) {
+            range = range.tailMap(fromCode, true);
+        }
+        if (toCode != null) {
+            range = range.headMap(toCode, false);
+        }
+        range.values().forEach(consumer);
+    };
+
+    private void fill(int count) {
+        for (int i = 0; i < count; i++) {
+            String code = String.format("C%04d", i);
+            table.put(code, new CountryView(code, "Country " + i, i % 3 == 0 ? null : (double) (i % 101), 50.0));
+        }
+    }
+
+    @Test
+    void everyCodeRangeIsReadOnceByItsOwnTask() {
+        fill(1000);
+
+        CountryStatistics statistics = ParallelStatistics.ofCodeRanges(List.of("C0250", "C0500", "C0750"), reader,
+                new ForkJoinPool(3));
+
+        assertEquals(4, reads.size());
+        assertEquals(List.of("C0250..C0500", "C0500..C0750", "C0750..null", "null..C0250"),
+                reads.stream().sorted().toList());
+        assertEquals(1000L, statistics.getRowCount());
+    }
+
+    @Test
+    void codeRangesAddUpToTheWholeTable() {
+        fill(1000);
+        CountryStatistics whole = CountryStatistics.ofViews(table.values());
+
+        CountryStatistics ranges = ParallelStatistics.ofCodeRanges(List.of("C0100", "C0101", "C0900"), reader,
+                new ForkJoinPool(2));
+
+        ColumnStatistics expected = whole.get(CountryColumn.INTERNET_USERS);
+        ColumnStatistics actual = ranges.get(CountryColumn.INTERNET_USERS);
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getNullCount(), actual.getNullCount());
+        assertEquals(expected.getSum(), actual.getSum(), 1e-6);
+        // Ties keep the row with the lowest code, as in a single pass
+        assertEquals(expected.getMinLabel(), actual.getMinLabel());
+        assertEquals(expected.getMaxLabel(), actual.getMaxLabel());
+    }
+
+    @Test
+    void distributionsOfCodeRangesCountEveryValue() {
+        fill(500);
+
+        CountryDistribution distribution = ParallelStatistics.distributionOfCodeRanges(List.of("C0200"), reader,
+                new ForkJoinPool(2));
+
+        assertEquals(500L, distribution.get(CountryColumn.ADULT_LITERACY_RATE).getCount());
+        assertEquals(50.0, distribution.get(CountryColumn.ADULT_LITERACY_RATE).getMedian(), 0.0);
+    }
+
+    @Test
+    void partitionsAreCombinedInOrder() {
+        String combined = ParallelStatistics.ofPartitions(7, Integer::toString, String::concat, new ForkJoinPool(4));
+
+        assertEquals("0123456", combined);
+    }
+}
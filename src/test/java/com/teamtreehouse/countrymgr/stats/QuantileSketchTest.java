@@ -0,0 +1,175 @@
+package com.teamtreehouse.countrymgr.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+    private static final double[] FRACTIONS = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+    // The class documents ranks accurate to about 1.7 / k of the count; allow twice that
+    private static final double RANK_ERROR = 2 * 1.7 / QuantileSketch.DEFAULT_K;
+
+    private static double[] randomValues(int count, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            // Skewed towards low values and with many duplicates, like the percentages of the Country table
+            values[i] = Math.round(100 * Math.pow(random.nextDouble(), 3) * 100) / 100.0;
+        }
+        return values;
+    }
+
+    private static QuantileSketch sketchOf(double[] values, int from, int to) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = from; i < to; i++) {
+            sketch.accept(values[i]);
+        }
+        return sketch;
+    }
+
+    // How far, as a fraction of the count, the rank of an estimate is from the wanted rank. With duplicates
+    // an estimate covers every rank between the values below it and the values up to it
+    private static double rankError(double[] sorted, double estimate, double fraction) {
+        int below = lowerBound(sorted, estimate);
+        int upTo = lowerBound(sorted, Math.nextUp(estimate));
+        double wanted = fraction * sorted.length;
+        if (wanted < below) {
+            return (below - wanted) / sorted.length;
+        }
+        return Math.max(0.0, wanted - upTo) / sorted.length;
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void assertWithinRankError(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double fraction : FRACTIONS) {
+            double error = rankError(sorted, sketch.quantile(fraction), fraction);
+            assertTrue(error <= RANK_ERROR, "rank error " + error + " at " + fraction);
+        }
+        assertEquals(sorted[0], sketch.quantile(0.0), 0.0);
+        assertEquals(sorted[sorted.length - 1], sketch.quantile(1.0), 0.0);
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+    }
+
+    @Test
+    void nanIsIgnored() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.accept(Double.NaN);
+        sketch.accept(1.0);
+
+        assertEquals(1L, sketch.getCount());
+        assertEquals(1.0, sketch.quantile(0.5), 0.0);
+    }
+
+    @Test
+    void fewValuesAreExact() {
+        double[] values = randomValues(QuantileSketch.DEFAULT_K / 2, 1L);
+        QuantileSketch sketch = sketchOf(values, 0, values.length);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        for (double fraction : FRACTIONS) {
+            int rank = (int) Math.ceil(fraction * sorted.length);
+            assertEquals(sorted[rank - 1], sketch.quantile(fraction), 0.0, "quantile " + fraction);
+        }
+    }
+
+    @Test
+    void quantilesOfALongStreamStayWithinTheRankError() {
+        double[] values = randomValues(200_000, 2L);
+        QuantileSketch sketch = sketchOf(values, 0, values.length);
+
+        assertEquals(values.length, sketch.getCount());
+        assertWithinRankError(sketch, values);
+    }
+
+    @Test
+    void sortedInputStaysWithinTheRankError() {
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        assertWithinRankError(sketchOf(values, 0, values.length), values);
+    }
+
+    @Test
+    void memoryStaysBounded() {
+        double[] values = randomValues(1_000_000, 3L);
+        QuantileSketch sketch = sketchOf(values, 0, values.length);
+
+        assertTrue(sketch.getRetainedCount() < 4 * QuantileSketch.DEFAULT_K,
+                "retained " + sketch.getRetainedCount());
+    }
+
+    @Test
+    void mergedPartitionsMatchTheWholeStream() {
+        double[] values = randomValues(160_000, 4L);
+        int partitions = 8;
+        int partitionSize = values.length / partitions;
+        QuantileSketch merged = new QuantileSketch();
+        for (int i = 0; i < partitions; i++) {
+            merged.combine(sketchOf(values, i * partitionSize, (i + 1) * partitionSize));
+        }
+
+        assertEquals(values.length, merged.getCount());
+        assertWithinRankError(merged, values);
+        assertTrue(merged.getRetainedCount() < 4 * QuantileSketch.DEFAULT_K);
+    }
+
+    @Test
+    void mergingSmallSketchesGivesTheSingleSketchAnswers() {
+        double[] values = randomValues(QuantileSketch.DEFAULT_K / 2, 5L);
+        QuantileSketch whole = sketchOf(values, 0, values.length);
+        QuantileSketch merged = sketchOf(values, 0, 30).combine(sketchOf(values, 30, values.length));
+
+        for (double fraction : FRACTIONS) {
+            assertEquals(whole.quantile(fraction), merged.quantile(fraction), 0.0, "quantile " + fraction);
+        }
+    }
+
+    @Test
+    void mergingAnEmptySketchChangesNothing() {
+        double[] values = randomValues(10_000, 6L);
+        QuantileSketch sketch = sketchOf(values, 0, values.length);
+        double median = sketch.quantile(0.5);
+
+        sketch.combine(new QuantileSketch());
+
+        assertEquals(values.length, sketch.getCount());
+        assertEquals(median, sketch.quantile(0.5), 0.0);
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(4));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch().quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(100).combine(new QuantileSketch(200)));
+    }
+}
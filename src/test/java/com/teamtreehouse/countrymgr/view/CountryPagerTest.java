@@ -0,0 +1,116 @@
+package com.teamtreehouse.countrymgr.view;
+
+import com.teamtreehouse.countrymgr.TestDatabase;
+import com.teamtreehouse.countrymgr.model.Country;
+import com.teamtreehouse.countrymgr.model.CountryView;
+import com.teamtreehouse.countrymgr.repository.CountryRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountryPagerTest {
+    private SessionFactory sessionFactory;
+    private CountryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = TestDatabase.inMemory();
+        repository = new CountryRepository(sessionFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    // Inserted out of order, so only the queries can put them in code order
+    private void store(String... codes) {
+        sessionFactory.inTransaction(session -> {
+            for (String code : codes) {
+                session.persist(new Country.CountryBuilder(code, "Country " + code).build());
+            }
+        });
+    }
+
+    private static List<String> codes(List<CountryView> page) {
+        return page.stream().map(CountryView::code).toList();
+    }
+
+    @Test
+    void pagesAfterACodeExcludeIt() {
+        store("AAE", "AAA", "AAD", "AAB", "AAC");
+
+        assertEquals(List.of("AAA", "AAB"), codes(repository.fetchPageAfter(null, 2)));
+        assertEquals(List.of("AAC", "AAD"), codes(repository.fetchPageAfter("AAB", 2)));
+        assertEquals(List.of("AAE"), codes(repository.fetchPageAfter("AAD", 2)));
+        assertEquals(List.of(), codes(repository.fetchPageAfter("AAE", 2)));
+    }
+
+    @Test
+    void pagesBeforeACodeExcludeItAndStayInAscendingOrder() {
+        store("AAE", "AAA", "AAD", "AAB", "AAC");
+
+        assertEquals(List.of("AAC", "AAD"), codes(repository.fetchPageBefore("AAE", 2)));
+        assertEquals(List.of("AAA", "AAB"), codes(repository.fetchPageBefore("AAC", 2)));
+        assertEquals(List.of("AAA"), codes(repository.fetchPageBefore("AAB", 2)));
+        assertEquals(List.of(), codes(repository.fetchPageBefore("AAA", 2)));
+    }
+
+    @Test
+    void codesBetweenStoredOnesAreValidBoundaries() {
+        store("AAA", "AAC", "AAE");
+
+        assertEquals(List.of("AAC", "AAE"), codes(repository.fetchPageAfter("AAB", 5)));
+        assertEquals(List.of("AAA", "AAC"), codes(repository.fetchPageBefore("AAD", 5)));
+    }
+
+    @Test
+    void pagerWalksForwardAndBackToTheSamePages() {
+        store("AAG", "AAF", "AAE", "AAD", "AAC", "AAB", "AAA");
+        CountryPager pager = new CountryPager(repository, 3);
+
+        assertEquals(List.of("AAA", "AAB", "AAC"), codes(pager.first()));
+        assertTrue(pager.next());
+        assertEquals(List.of("AAD", "AAE", "AAF"), codes(pager.current()));
+        assertTrue(pager.next());
+        assertEquals(List.of("AAG"), codes(pager.current()));
+
+        assertFalse(pager.next());
+        assertEquals(List.of("AAG"), codes(pager.current()));
+
+        assertTrue(pager.previous());
+        assertEquals(List.of("AAD", "AAE", "AAF"), codes(pager.current()));
+        assertTrue(pager.previous());
+        assertEquals(List.of("AAA", "AAB", "AAC"), codes(pager.current()));
+        assertFalse(pager.previous());
+        assertEquals(List.of("AAA", "AAB", "AAC"), codes(pager.current()));
+    }
+
+    @Test
+    void lastPageFilledExactlyHasNoNextPage() {
+        store("AAA", "AAB", "AAC", "AAD");
+        CountryPager pager = new CountryPager(repository, 2);
+
+        pager.first();
+        assertTrue(pager.next());
+        assertEquals(List.of("AAC", "AAD"), codes(pager.current()));
+        assertFalse(pager.next());
+        assertEquals(List.of("AAC", "AAD"), codes(pager.current()));
+    }
+
+    @Test
+    void emptyTableHasOneEmptyPage() {
+        CountryPager pager = new CountryPager(repository, 3);
+
+        assertEquals(List.of(), pager.first());
+        assertFalse(pager.next());
+        assertFalse(pager.previous());
+    }
+}